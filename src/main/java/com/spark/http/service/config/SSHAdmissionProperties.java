@@ -0,0 +1,36 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.admission")
+public class SSHAdmissionProperties {
+
+	private boolean enabled = true;
+
+	/** Channels in use at once per clientId, commands and transfers alike. */
+	private int maxConcurrentPerClient = 32;
+
+	/** Callers waiting for one clientId; further callers are rejected with 429 right away. */
+	private int maxQueuedPerClient = 64;
+
+	/** Channels in use at once across all clients. */
+	private int maxConcurrent = 256;
+
+	/** Callers waiting for the global limit; further callers are rejected with 503 right away. */
+	private int maxQueued = 1024;
+
+	/** How long a caller may wait in the queues before it is rejected. */
+	private long maxQueueMillis = 10_000;
+
+	/** Upper bound of the Retry-After estimate. */
+	private long maxRetryAfterSeconds = 30;
+
+}
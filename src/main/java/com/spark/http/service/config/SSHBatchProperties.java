@@ -0,0 +1,25 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.batch")
+public class SSHBatchProperties {
+
+	/** Global cap on hosts executing batch commands at the same time. */
+	private int poolSize = 32;
+
+	/** Host tasks waiting for a worker across all batches; beyond it batches are rejected with 503. */
+	private int queueCapacity = 2000;
+
+	/** Per-host timeout used when the request does not set one, 0 - no timeout. */
+	private int defaultTimeoutSeconds = 300;
+
+}
@@ -0,0 +1,34 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.distribution")
+public class SSHDistributionProperties {
+
+	/** Global cap on hosts receiving files at the same time. */
+	private int poolSize = 32;
+
+	/** Host transfers waiting for a worker across all distributions; beyond it they are rejected with 503. */
+	private int queueCapacity = 1000;
+
+	/** Hosts receiving at the same time within one distribution when the request does not set it. */
+	private int defaultParallelism = 8;
+
+	/** Hosts every relaying host forwards to when the request does not set it. */
+	private int defaultFanout = 2;
+
+	/** Interval of progress events in streamed distributions. */
+	private int progressIntervalMillis = 1000;
+
+	/** Options passed to scp on relaying hosts; the relay must not prompt. */
+	private String relayScpOptions = "-q -o BatchMode=yes -o StrictHostKeyChecking=accept-new";
+
+}
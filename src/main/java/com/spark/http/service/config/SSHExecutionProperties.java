@@ -0,0 +1,44 @@
+package com.spark.http.service.config;
+
+import com.spark.http.service.model.entity.OutputLimitMode;
+import com.spark.http.service.model.entity.ThreadMode;
+import lombok.Getter;
+import net.schmizz.sshj.connection.channel.direct.Signal;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.execution")
+public class SSHExecutionProperties {
+
+	/** Size of the buffer used to forward streamed command output to the HTTP response. */
+	private int streamBufferSize = 8192;
+
+	/** Default cap on captured stdout and on captured stderr of one command. */
+	private int maxOutputBytes = 1024 * 1024;
+
+	private OutputLimitMode outputLimitMode = OutputLimitMode.HEAD;
+
+	private Charset outputCharset = StandardCharsets.UTF_8;
+
+	/** Execution timeout of commands when neither the request nor the client sets one, 0 - none. */
+	private int commandTimeoutSeconds = 3600;
+
+	/** Sent to a command that timed out or is cancelled. */
+	private Signal cancelSignal = Signal.TERM;
+
+	/** The channel of a stopped command is closed if it is still open after this long. */
+	private long cancelGraceMillis = 2000;
+
+	/** Threads of Tomcat, streamed responses and the ssh worker pools; VIRTUAL needs Java 24. */
+	private ThreadMode threadMode = ThreadMode.PLATFORM;
+
+}
@@ -0,0 +1,47 @@
+package com.spark.http.service.config;
+
+import com.spark.http.service.model.entity.ProbeLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.health")
+public class SSHHealthCheckProperties {
+
+	/** Runs the background prober; when disabled statuses are only refreshed on request. */
+	private boolean enabled = true;
+
+	/** Delay between the end of one probe round and the start of the next. */
+	private int intervalSeconds = 60;
+
+	/** Hosts probed at the same time. */
+	private int poolSize = 16;
+
+	/** Probes waiting for a worker; hosts that do not fit are skipped until the next round. */
+	private int queueCapacity = 1000;
+
+	/** Socket connect, banner and handshake timeout of a single probe, unless the client sets its own. */
+	private int connectTimeoutMillis = 5000;
+
+	/** Level of the regular background rounds. */
+	private ProbeLevel level = ProbeLevel.BANNER;
+
+	/** Level of the deep rounds, of on-demand checks and of checks of newly added clients. */
+	private ProbeLevel deepLevel = ProbeLevel.AUTH;
+
+	/** Minimum time between deep background rounds, 0 - every round is deep. */
+	private int deepIntervalSeconds = 600;
+
+	/** Command run by the COMMAND level. */
+	private String command = "true";
+
+	/** Time the COMMAND level waits for the command to exit. */
+	private int commandTimeoutMillis = 10000;
+
+}
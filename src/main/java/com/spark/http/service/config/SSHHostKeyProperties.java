@@ -0,0 +1,26 @@
+package com.spark.http.service.config;
+
+import com.spark.http.service.model.entity.HostKeyMode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.host-keys")
+public class SSHHostKeyProperties {
+
+	/** Mode of clients registered without {@code hostKeyMode}. */
+	private HostKeyMode defaultMode = HostKeyMode.TOFU;
+
+	/** Accept and pin the key of an unknown host when ~/.ssh/known_hosts lists it, in either mode. */
+	private boolean trustKnownHosts = true;
+
+	/** Connect and key exchange timeout when the key to pin is fetched from the server. */
+	private int fetchTimeoutMillis = 10000;
+
+}
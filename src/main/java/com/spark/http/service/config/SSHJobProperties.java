@@ -0,0 +1,30 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.jobs")
+public class SSHJobProperties {
+
+	/** Number of commands executed concurrently by the job executor. */
+	private int poolSize = 16;
+
+	/** Submitted jobs waiting for a worker; submissions beyond it are rejected with 503. */
+	private int queueCapacity = 1000;
+
+	/** Finished jobs are kept for polling this long. */
+	private long retentionSeconds = 3600;
+
+	/** Hard cap on kept finished jobs, the oldest are dropped first. */
+	private int maxRetained = 1000;
+
+	private long cleanupIntervalSeconds = 60;
+
+}
@@ -0,0 +1,22 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.keys")
+public class SSHKeyProperties {
+
+	/** Cached key and known_hosts files are checked for changes at most this often. */
+	private long recheckIntervalMillis = 5000;
+
+	/** Parse the key of a client when it is registered instead of on its first connection. */
+	private boolean prewarm = true;
+
+}
@@ -0,0 +1,42 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.pool")
+public class SSHPoolProperties {
+
+	/** Max number of authenticated transports opened per clientId. */
+	private int maxSizePerHost = 8;
+
+	/** Max channels opened on one transport, matches the OpenSSH MaxSessions default. */
+	private int maxSessionsPerConnection = 10;
+
+	/** Max concurrent channels per clientId across all its transports; further callers queue. */
+	private int maxChannelsPerHost = 32;
+
+	/** How long a caller waits for a transport when the host has no free channel. */
+	private long maxWaitMillis = 30_000;
+
+	/** Idle transports older than this are closed by the evictor. */
+	private long idleTimeoutSeconds = 300;
+
+	private long evictionIntervalSeconds = 30;
+
+	/** Keep-alive interval for pooled transports, 0 disables it. */
+	private int keepAliveIntervalSeconds = 30;
+
+	/** Socket connect timeout of new transports, 0 - none. */
+	private int connectTimeoutMillis = 10_000;
+
+	/** Key exchange, authentication and channel open timeout of new transports. */
+	private int authTimeoutMillis = 30_000;
+
+}
@@ -0,0 +1,25 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.result-cache")
+public class SSHResultCacheProperties {
+
+	/** When off, {@code cacheTtlSeconds} of a command is ignored and every command runs. */
+	private boolean enabled = true;
+
+	/** Upper bound of the cached output, stdout and stderr of all entries together. */
+	private long maxSizeBytes = 64L * 1024 * 1024;
+
+	/** Upper bound of the TTL a command may ask for. */
+	private int maxTtlSeconds = 3600;
+
+}
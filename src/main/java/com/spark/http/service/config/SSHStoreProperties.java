@@ -0,0 +1,28 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.store")
+public class SSHStoreProperties {
+
+	/** Directory of the snapshot and write-ahead log files. */
+	private String directory = "data";
+
+	/** fsync every change; without it a change survives a killed process but not a power loss. */
+	private boolean syncWrites = true;
+
+	/** Log records after which the log is folded into a new snapshot. */
+	private int compactionThreshold = 1000;
+
+	/** Java-serialized client map of earlier versions, imported once into an empty store. */
+	private String legacyClientsFile = "clientsMap.ser";
+
+}
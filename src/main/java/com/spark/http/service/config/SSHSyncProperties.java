@@ -0,0 +1,25 @@
+package com.spark.http.service.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.sync")
+public class SSHSyncProperties {
+
+	/** Size of the blocks compared between a changed local file and its remote copy. */
+	private int blockSize = 1024 * 1024;
+
+	/** Changed files smaller than this are uploaded whole instead of compared block by block. */
+	private long minDeltaBytes = 8L * 1024 * 1024;
+
+	/** Remote files hashed by one sha256sum call. */
+	private int checksumBatchSize = 200;
+
+}
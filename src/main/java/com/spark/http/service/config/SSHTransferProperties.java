@@ -0,0 +1,51 @@
+package com.spark.http.service.config;
+
+import com.spark.http.service.model.entity.LocalReadMode;
+import com.spark.http.service.model.entity.TransferProtocol;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@ToString
+@Configuration
+@ConfigurationProperties(prefix = "ssh.transfer")
+public class SSHTransferProperties {
+
+	/** Protocol used when the request does not choose one. */
+	private TransferProtocol protocol = TransferProtocol.SFTP;
+
+	/** Payload of a single SFTP write request; every server must accept 32 KB, most accept more. */
+	private int chunkSize = 32768;
+
+	/** SFTP write requests sent ahead of their acknowledgements. */
+	private int maxUnconfirmedWrites = 64;
+
+	/** Buffer for reading the local side of an SCP transfer. */
+	private int bufferSize = 1024 * 1024;
+
+	/** How local files are read for SFTP uploads. */
+	private LocalReadMode localReadMode = LocalReadMode.CHANNEL;
+
+	/** Size of a mapped window in MAPPED mode. */
+	private int mappedRegionSize = 64 * 1024 * 1024;
+
+	/** SFTP channels a single local file upload is split across, 1 - no split. */
+	private int parallelStreams = 4;
+
+	/** Smallest range worth its own channel; smaller files use fewer streams. */
+	private long minRangeBytes = 64L * 1024 * 1024;
+
+	/** Range uploads running at the same time across all requests. */
+	private int poolSize = 16;
+
+	/** Range uploads waiting for a worker; beyond it uploads are rejected with 503. */
+	private int queueCapacity = 256;
+
+	/** Largest body accepted by the write endpoints, 0 - no limit. */
+	private long maxUploadBytes = 10L * 1024 * 1024 * 1024;
+
+}
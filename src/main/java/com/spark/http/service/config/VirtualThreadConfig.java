@@ -0,0 +1,38 @@
+package com.spark.http.service.config;
+
+import com.spark.http.service.service.impl.SSHThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * With {@code ssh.execution.thread-mode=VIRTUAL} every HTTP request and every streamed response
+ * runs on a virtual thread of its own instead of the Tomcat and MVC async pools.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ssh.execution.thread-mode", havingValue = "VIRTUAL")
+public class VirtualThreadConfig {
+
+	@Bean(destroyMethod = "shutdown")
+	public ExecutorService httpRequestExecutor(SSHThreads threads) {
+		return threads.perTask("http");
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(ExecutorService httpRequestExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(httpRequestExecutor);
+	}
+
+	/** Takes the place of the Boot task pool, which runs {@code StreamingResponseBody} writers. */
+	@Bean(name = "applicationTaskExecutor", destroyMethod = "")
+	public AsyncTaskExecutor applicationTaskExecutor(SSHThreads threads) {
+		return new TaskExecutorAdapter(threads.perTask("http-async"));
+	}
+
+}
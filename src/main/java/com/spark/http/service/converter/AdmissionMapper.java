@@ -0,0 +1,16 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.responce.AdmissionGateStatsDto;
+import com.spark.http.service.model.dto.responce.AdmissionStatsDto;
+import com.spark.http.service.model.entity.AdmissionGateStats;
+import com.spark.http.service.model.entity.AdmissionStats;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface AdmissionMapper {
+
+	AdmissionStatsDto EntityToDto(AdmissionStats admissionStats);
+
+	AdmissionGateStatsDto EntityToDto(AdmissionGateStats admissionGateStats);
+
+}
@@ -0,0 +1,16 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.request.BatchCMDDto;
+import com.spark.http.service.model.dto.responce.BatchResultDto;
+import com.spark.http.service.model.entity.BatchCMD;
+import com.spark.http.service.model.entity.BatchResult;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring", uses = SSHCommandResultMapper.class)
+public interface BatchMapper {
+
+	BatchCMD dtoToEntity(BatchCMDDto batchCMDDto);
+
+	BatchResultDto EntityToDto(BatchResult batchResult);
+
+}
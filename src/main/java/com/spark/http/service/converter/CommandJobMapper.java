@@ -0,0 +1,14 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.responce.JobResponseDto;
+import com.spark.http.service.model.entity.CommandJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(componentModel = "spring", uses = SSHCommandResultMapper.class)
+public interface CommandJobMapper {
+
+	@Mapping(source = "cmd.cmd", target = "cmd")
+	JobResponseDto EntityToDto(CommandJob commandJob);
+
+}
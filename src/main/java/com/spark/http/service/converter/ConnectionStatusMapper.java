@@ -0,0 +1,12 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.responce.ConnectionStatusDto;
+import com.spark.http.service.model.entity.ConnectionStatus;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface ConnectionStatusMapper {
+
+	ConnectionStatusDto EntityToDto(ConnectionStatus connectionStatus);
+
+}
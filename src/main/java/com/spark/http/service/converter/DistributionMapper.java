@@ -0,0 +1,16 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.request.DistributionDto;
+import com.spark.http.service.model.dto.responce.DistributionResultDto;
+import com.spark.http.service.model.entity.Distribution;
+import com.spark.http.service.model.entity.DistributionResult;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface DistributionMapper {
+
+	Distribution dtoToEntity(DistributionDto distributionDto);
+
+	DistributionResultDto EntityToDto(DistributionResult distributionResult);
+
+}
@@ -0,0 +1,16 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.responce.HostKeyDto;
+import com.spark.http.service.model.dto.responce.KnownHostDto;
+import com.spark.http.service.model.entity.HostKey;
+import com.spark.http.service.model.entity.KnownHost;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface HostKeyMapper {
+
+	KnownHostDto EntityToDto(KnownHost knownHost);
+
+	HostKeyDto EntityToDto(HostKey hostKey);
+
+}
@@ -0,0 +1,12 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.responce.ResultCacheStatsDto;
+import com.spark.http.service.model.entity.ResultCacheStats;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface ResultCacheMapper {
+
+	ResultCacheStatsDto EntityToDto(ResultCacheStats resultCacheStats);
+
+}
@@ -0,0 +1,20 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.request.SyncDto;
+import com.spark.http.service.model.dto.responce.SyncFileResultDto;
+import com.spark.http.service.model.dto.responce.SyncResultDto;
+import com.spark.http.service.model.entity.Sync;
+import com.spark.http.service.model.entity.SyncFileResult;
+import com.spark.http.service.model.entity.SyncResult;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface SyncMapper {
+
+	Sync dtoToEntity(SyncDto syncDto);
+
+	SyncResultDto EntityToDto(SyncResult syncResult);
+
+	SyncFileResultDto EntityToDto(SyncFileResult syncFileResult);
+
+}
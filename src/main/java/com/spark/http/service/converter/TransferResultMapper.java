@@ -0,0 +1,12 @@
+package com.spark.http.service.converter;
+
+import com.spark.http.service.model.dto.responce.TransferResultDto;
+import com.spark.http.service.model.entity.TransferResult;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface TransferResultMapper {
+
+	TransferResultDto EntityToDto(TransferResult transferResult);
+
+}
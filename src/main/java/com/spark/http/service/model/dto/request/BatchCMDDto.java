@@ -0,0 +1,19 @@
+package com.spark.http.service.model.dto.request;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(callSuper = true)
+public class BatchCMDDto extends CMDDto {
+
+	private List<String> clientIds;
+	private String tag;
+
+}
@@ -1,5 +1,6 @@
 package com.spark.http.service.model.dto.request;
 
+import com.spark.http.service.model.entity.OutputLimitMode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -12,5 +13,10 @@ import lombok.ToString;
 public class CMDDto {
 
 	private String cmd;
+	private Boolean pty;
+	private Integer maxOutputBytes;
+	private OutputLimitMode outputLimitMode;
+	private Integer timeoutSeconds;
+	private Integer cacheTtlSeconds;
 
 }
@@ -0,0 +1,25 @@
+package com.spark.http.service.model.dto.request;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class DistributionDto {
+
+	private String localFilePath;
+	private String remoteFilePath;
+	private List<String> clientIds;
+	private String tag;
+	private Integer parallelism;
+	private Boolean relay;
+	private Integer fanout;
+	private Boolean verify;
+
+}
@@ -0,0 +1,17 @@
+package com.spark.http.service.model.dto.request;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class HostKeyPinDto {
+
+	private String publicKey;
+	private Boolean replace;
+
+}
@@ -1,10 +1,13 @@
 package com.spark.http.service.model.dto.request;
 
+import com.spark.http.service.model.entity.HostKeyMode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.util.Set;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,5 +19,11 @@ public class SSHClientRequestDto {
 	private Integer port = 22;
 	private String password;
 	private String KeyFilePath;
+	private Set<String> tags;
+	private Boolean compression;
+	private HostKeyMode hostKeyMode;
+	private Integer connectTimeoutMillis;
+	private Integer authTimeoutMillis;
+	private Integer commandTimeoutSeconds;
 
 }
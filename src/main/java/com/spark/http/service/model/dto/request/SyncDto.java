@@ -0,0 +1,19 @@
+package com.spark.http.service.model.dto.request;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SyncDto {
+
+	private String localPath;
+	private String remotePath;
+	private Integer blockSize;
+	private Boolean dryRun;
+
+}
@@ -0,0 +1,23 @@
+package com.spark.http.service.model.dto.responce;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class AdmissionGateStatsDto {
+
+	private Integer limit;
+	private Integer inFlight;
+	private Integer queued;
+	private Long admitted;
+	private Long rejected;
+	private Long timedOut;
+	private Double averageWaitMillis;
+	private Long maxWaitMillis;
+
+}
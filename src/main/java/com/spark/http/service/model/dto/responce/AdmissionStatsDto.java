@@ -0,0 +1,19 @@
+package com.spark.http.service.model.dto.responce;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class AdmissionStatsDto {
+
+	private AdmissionGateStatsDto global;
+	private Map<String, AdmissionGateStatsDto> clients;
+
+}
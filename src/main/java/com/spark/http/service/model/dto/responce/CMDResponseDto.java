@@ -1,5 +1,6 @@
 package com.spark.http.service.model.dto.responce;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -9,8 +10,16 @@ import lombok.ToString;
 @Setter
 @NoArgsConstructor
 @ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CMDResponseDto {
 
 	private String output;
+	private String stderr;
+	private Integer exitStatus;
+	private String exitSignal;
+	private Boolean truncated;
+	private Long stdoutBytes;
+	private Long stderrBytes;
+	private Boolean timedOut;
 
 }
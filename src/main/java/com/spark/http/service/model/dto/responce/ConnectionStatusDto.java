@@ -0,0 +1,29 @@
+package com.spark.http.service.model.dto.responce;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.spark.http.service.model.entity.ProbeLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.SortedMap;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConnectionStatusDto {
+
+	private String clientId;
+	private Boolean connected;
+	private Instant checkedAt;
+	private ProbeLevel level;
+	private Long latencyMillis;
+	private SortedMap<ProbeLevel, Long> latencies;
+	private ProbeLevel failedLevel;
+	private String error;
+
+}
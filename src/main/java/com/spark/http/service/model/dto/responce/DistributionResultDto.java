@@ -0,0 +1,28 @@
+package com.spark.http.service.model.dto.responce;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.spark.http.service.model.entity.HostResultStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DistributionResultDto {
+
+	private String clientId;
+	private HostResultStatus status;
+	private String via;
+	private Long bytesTransferred;
+	private Long totalBytes;
+	private String checksum;
+	private Boolean checksumMatch;
+	private String error;
+	private Long durationMillis;
+	private Long bytesPerSecond;
+
+}
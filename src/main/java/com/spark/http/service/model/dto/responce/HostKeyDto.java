@@ -0,0 +1,25 @@
+package com.spark.http.service.model.dto.responce;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.spark.http.service.model.entity.HostKeySource;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HostKeyDto {
+
+	private String keyType;
+	private String fingerprint;
+	private String publicKey;
+	private HostKeySource source;
+	private Instant addedAt;
+
+}
@@ -0,0 +1,29 @@
+package com.spark.http.service.model.dto.responce;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.spark.http.service.model.entity.JobStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobResponseDto {
+
+	private String jobId;
+	private String clientId;
+	private String cmd;
+	private JobStatus status;
+	private Instant submittedAt;
+	private Instant startedAt;
+	private Instant finishedAt;
+	private String error;
+	private CMDResponseDto result;
+
+}
@@ -0,0 +1,20 @@
+package com.spark.http.service.model.dto.responce;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class KnownHostDto {
+
+	private String host;
+	private Integer port;
+	private List<HostKeyDto> keys;
+
+}
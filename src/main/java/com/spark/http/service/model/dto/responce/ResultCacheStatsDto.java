@@ -0,0 +1,21 @@
+package com.spark.http.service.model.dto.responce;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ResultCacheStatsDto {
+
+	private Long entries;
+	private Long sizeBytes;
+	private Long hits;
+	private Long misses;
+	private Double hitRate;
+	private Long evictions;
+
+}
@@ -1,10 +1,13 @@
 package com.spark.http.service.model.dto.responce;
 
+import com.spark.http.service.model.entity.HostKeyMode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.util.Set;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,5 +20,11 @@ public class SSHClientResponseDto {
 	private Integer port;
 	private String password;
 	private String KeyFilePath;
+	private Set<String> tags;
+	private Boolean compression;
+	private HostKeyMode hostKeyMode;
+	private Integer connectTimeoutMillis;
+	private Integer authTimeoutMillis;
+	private Integer commandTimeoutSeconds;
 
 }
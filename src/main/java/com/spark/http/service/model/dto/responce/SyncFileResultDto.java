@@ -0,0 +1,23 @@
+package com.spark.http.service.model.dto.responce;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.spark.http.service.model.entity.SyncAction;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncFileResultDto {
+
+	private String path;
+	private SyncAction action;
+	private Long totalBytes;
+	private Long transferredBytes;
+	private Integer changedBlocks;
+
+}
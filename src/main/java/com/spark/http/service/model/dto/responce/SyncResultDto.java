@@ -0,0 +1,29 @@
+package com.spark.http.service.model.dto.responce;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SyncResultDto {
+
+	private String localPath;
+	private String remotePath;
+	private Boolean dryRun;
+	private Integer files;
+	private Integer unchangedFiles;
+	private Integer patchedFiles;
+	private Integer uploadedFiles;
+	private Long totalBytes;
+	private Long transferredBytes;
+	private Long bytesSaved;
+	private List<SyncFileResultDto> changes;
+	private Long durationMillis;
+
+}
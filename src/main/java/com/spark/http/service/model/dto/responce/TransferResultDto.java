@@ -0,0 +1,26 @@
+package com.spark.http.service.model.dto.responce;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.spark.http.service.model.entity.TransferProtocol;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferResultDto {
+
+	private String remotePath;
+	private TransferProtocol protocol;
+	private Long totalBytes;
+	private Long transferredBytes;
+	private Long skippedBytes;
+	private Integer streams;
+	private Long durationMillis;
+	private Long bytesPerSecond;
+
+}
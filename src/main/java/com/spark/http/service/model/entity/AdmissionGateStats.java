@@ -0,0 +1,32 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * State of one admission limit; counters and wait times are totals since start.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class AdmissionGateStats {
+
+	private Integer limit;
+	private Integer inFlight;
+	private Integer queued;
+	private Long admitted;
+
+	/** Turned away because the queue was full. */
+	private Long rejected;
+
+	/** Gave up after waiting {@code ssh.admission.max-queue-millis}. */
+	private Long timedOut;
+
+	/** Wait of admitted callers, 0 for callers admitted without waiting. */
+	private Double averageWaitMillis;
+	private Long maxWaitMillis;
+
+}
@@ -0,0 +1,19 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class AdmissionStats {
+
+	private AdmissionGateStats global;
+	private Map<String, AdmissionGateStats> clients;
+
+}
@@ -0,0 +1,19 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(callSuper = true)
+public class BatchCMD extends CMD {
+
+	private List<String> clientIds;
+	private String tag;
+
+}
@@ -0,0 +1,20 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class BatchResult {
+
+	private String clientId;
+	private HostResultStatus status;
+	private SSHCommandResult result;
+	private String error;
+	private Long durationMillis;
+
+}
@@ -12,5 +12,14 @@ import lombok.ToString;
 public class CMD {
 
 	private String cmd;
+	private Boolean pty;
+	private Integer maxOutputBytes;
+	private OutputLimitMode outputLimitMode;
+
+	/** Execution timeout, 0 - none; the client's or the configured default when not set. */
+	private Integer timeoutSeconds;
+
+	/** Serve the result from the cache for this long, 0 or not set - run the command every time. */
+	private Integer cacheTtlSeconds;
 
 }
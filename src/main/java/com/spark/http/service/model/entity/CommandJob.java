@@ -0,0 +1,31 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@ToString(of = {"jobId", "clientId", "status"})
+public class CommandJob {
+
+	private final String jobId;
+	private final String clientId;
+	private final CMD cmd;
+	private final Instant submittedAt = Instant.now();
+
+	private volatile JobStatus status = JobStatus.QUEUED;
+	private volatile Instant startedAt;
+	private volatile Instant finishedAt;
+	private volatile SSHCommandResult result;
+	private volatile String error;
+
+	public CommandJob(String jobId, String clientId, CMD cmd) {
+		this.jobId = jobId;
+		this.clientId = clientId;
+		this.cmd = cmd;
+	}
+
+}
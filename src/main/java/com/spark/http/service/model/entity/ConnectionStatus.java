@@ -0,0 +1,34 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Last known result of probing a client. {@code connected} is null while the client has not
+ * been checked yet. {@code latencies} holds the time of every level that completed, and
+ * {@code failedLevel} the level the probe stopped at.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ConnectionStatus {
+
+	private String clientId;
+	private Boolean connected;
+	private Instant checkedAt;
+	private ProbeLevel level;
+	private Long latencyMillis;
+	private Map<ProbeLevel, Long> latencies;
+	private ProbeLevel failedLevel;
+	private String error;
+
+	/** Registry version of the client settings the probe ran against. */
+	private long version;
+
+}
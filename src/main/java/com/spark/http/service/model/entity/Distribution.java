@@ -0,0 +1,37 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * One local file pushed to many clients.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class Distribution {
+
+	private String localFilePath;
+	private String remoteFilePath;
+	private List<String> clientIds;
+	private String tag;
+
+	/** Hosts receiving at the same time, direct uploads and relays together. */
+	private Integer parallelism;
+
+	/**
+	 * Only the first {@code parallelism} hosts are uploaded to directly; every host that has the
+	 * file forwards it to up to {@code fanout} others with scp. Needs key trust between the hosts.
+	 */
+	private Boolean relay;
+	private Integer fanout;
+
+	/** Compare the sha256 of every copy with the local file. */
+	private Boolean verify;
+
+}
@@ -0,0 +1,28 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class DistributionResult {
+
+	private String clientId;
+	private HostResultStatus status;
+
+	/** Client the file was relayed from, null for direct uploads. */
+	private String via;
+
+	private Long bytesTransferred;
+	private Long totalBytes;
+	private String checksum;
+	private Boolean checksumMatch;
+	private String error;
+	private Long durationMillis;
+	private Long bytesPerSecond;
+
+}
@@ -0,0 +1,28 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class HostKey {
+
+	/** Key type as in known_hosts, e.g. {@code ssh-ed25519}. */
+	private String keyType;
+
+	/** {@code SHA256:} fingerprint, the format printed by {@code ssh-keygen -l}. */
+	private String fingerprint;
+
+	/** Key in known_hosts format: type and base64 encoded key. */
+	private String publicKey;
+
+	private HostKeySource source;
+	private Instant addedAt;
+
+}
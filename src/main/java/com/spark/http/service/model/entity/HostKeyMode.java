@@ -0,0 +1,17 @@
+package com.spark.http.service.model.entity;
+
+/**
+ * How the host key presented by a server is checked.
+ */
+public enum HostKeyMode {
+
+	/** The first key seen for a host is pinned, later connections must present a pinned key. */
+	TOFU,
+
+	/** Only pinned keys and keys listed in known_hosts are accepted. */
+	STRICT,
+
+	/** Every key is accepted and nothing is pinned, the behaviour of earlier versions. */
+	ACCEPT_ALL
+
+}
@@ -0,0 +1,17 @@
+package com.spark.http.service.model.entity;
+
+/**
+ * Why a host key is trusted.
+ */
+public enum HostKeySource {
+
+	/** Pinned on the first connection to the host. */
+	FIRST_USE,
+
+	/** Found in {@code ~/.ssh/known_hosts} on the first connection to the host. */
+	KNOWN_HOSTS,
+
+	/** Pinned through the API. */
+	PINNED
+
+}
@@ -0,0 +1,12 @@
+package com.spark.http.service.model.entity;
+
+public enum HostResultStatus {
+
+	SUCCEEDED,
+	FAILED,
+	TIMED_OUT,
+
+	/** Progress snapshot of a host that is still working. */
+	RUNNING
+
+}
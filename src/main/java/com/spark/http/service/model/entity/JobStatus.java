@@ -0,0 +1,15 @@
+package com.spark.http.service.model.entity;
+
+public enum JobStatus {
+
+	QUEUED,
+	RUNNING,
+	SUCCEEDED,
+	FAILED,
+	CANCELLED;
+
+	public boolean isFinished() {
+		return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.spark.http.service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keys trusted for one host and port. Shared by all clients of that address and replaced as a
+ * whole on every change, never modified in place.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class KnownHost {
+
+	private String host;
+	private Integer port;
+	private List<HostKey> keys = new ArrayList<>();
+
+}
@@ -0,0 +1,14 @@
+package com.spark.http.service.model.entity;
+
+/**
+ * How the local side of an upload is read.
+ */
+public enum LocalReadMode {
+
+	/** Positional FileChannel reads, one syscall per chunk. */
+	CHANNEL,
+
+	/** Memory-mapped regions of the file, chunks are copied straight from the page cache. */
+	MAPPED
+
+}
@@ -0,0 +1,17 @@
+package com.spark.http.service.model.entity;
+
+/**
+ * What to keep once command output exceeds the configured byte limit.
+ */
+public enum OutputLimitMode {
+
+	/** Keep the first bytes, keep draining the rest so the command can finish. */
+	HEAD,
+
+	/** Keep the last bytes. */
+	TAIL,
+
+	/** Keep the first bytes and stop the command as soon as the limit is reached. */
+	TRUNCATE
+
+}
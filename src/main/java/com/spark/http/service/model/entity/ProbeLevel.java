@@ -0,0 +1,20 @@
+package com.spark.http.service.model.entity;
+
+/**
+ * Health check depth; every level also runs all cheaper levels before it.
+ */
+public enum ProbeLevel {
+
+	/** TCP connect to the ssh port. */
+	TCP,
+
+	/** Reads the server identification string without starting a key exchange. */
+	BANNER,
+
+	/** Full key exchange and authentication. */
+	AUTH,
+
+	/** Runs the configured command and expects exit status 0. */
+	COMMAND
+
+}
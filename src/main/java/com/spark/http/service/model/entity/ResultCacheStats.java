@@ -0,0 +1,30 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * State of the command result cache; counters are totals since start.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ResultCacheStats {
+
+	private Long entries;
+
+	/** Cached output of all entries, in characters. */
+	private Long sizeBytes;
+
+	/** Served from the cache, including callers that waited for the same command already running. */
+	private Long hits;
+	private Long misses;
+	private Double hitRate;
+
+	/** Dropped to stay under {@code ssh.result-cache.max-size-bytes}. */
+	private Long evictions;
+
+}
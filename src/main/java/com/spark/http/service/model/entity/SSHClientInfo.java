@@ -7,6 +7,8 @@ import lombok.Setter;
 import lombok.ToString;
 
 import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
 
 @Getter
 @Setter
@@ -15,11 +17,29 @@ import java.io.*;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SSHClientInfo implements Serializable {
 
+	private static final long serialVersionUID = 7597634436334456916L;
+
 	private String host;
 	private String user;
 	private Integer port = 22;
 	private String password;
 	private String keyFilePath;
+	private Set<String> tags = new HashSet<>();
+
+	/** Negotiate zlib compression on the transport; pays off for text output and configs, not for jars or archives. */
+	private Boolean compression;
+
+	/** Host key check, {@code ssh.host-keys.default-mode} when not set. */
+	private HostKeyMode hostKeyMode;
+
+	/** Socket connect timeout of new connections, {@code ssh.pool.connect-timeout-millis} when not set. */
+	private Integer connectTimeoutMillis;
+
+	/** Key exchange and authentication timeout of new connections, {@code ssh.pool.auth-timeout-millis} when not set. */
+	private Integer authTimeoutMillis;
+
+	/** Execution timeout of commands that do not set one, {@code ssh.execution.command-timeout-seconds} when not set. */
+	private Integer commandTimeoutSeconds;
 
 
 }
@@ -11,4 +11,16 @@ import lombok.ToString;
 @ToString
 public class SSHCommandResult {
 	private String output;
+	private String stderr;
+	private Integer exitStatus;
+
+	/** Signal that terminated the command, e.g. {@code TERM}; no exit status is set then. */
+	private String exitSignal;
+
+	private Boolean truncated;
+	private Long stdoutBytes;
+	private Long stderrBytes;
+
+	/** The command was stopped after its timeout; the output is what it wrote until then. */
+	private Boolean timedOut;
 }
@@ -0,0 +1,27 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Brings a remote file or directory in line with a local one, sending only what differs.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class Sync {
+
+	/** Local file or directory; directories are synced recursively. */
+	private String localPath;
+	private String remotePath;
+
+	/** Size of the compared blocks; null falls back to {@code ssh.sync.block-size}. */
+	private Integer blockSize;
+
+	/** Only report what would be sent. */
+	private Boolean dryRun;
+
+}
@@ -0,0 +1,14 @@
+package com.spark.http.service.model.entity;
+
+public enum SyncAction {
+
+	/** Remote copy already matched the local file. */
+	UNCHANGED,
+
+	/** Only the blocks that differ were rewritten. */
+	PATCHED,
+
+	/** Sent in full: missing remotely, too small for a block comparison, or the patch did not verify. */
+	UPLOADED
+
+}
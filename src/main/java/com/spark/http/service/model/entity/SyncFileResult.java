@@ -0,0 +1,23 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SyncFileResult {
+
+	/** Path relative to the synced directory, the file name for a single file. */
+	private String path;
+	private SyncAction action;
+	private Long totalBytes;
+	private Long transferredBytes;
+
+	/** Blocks rewritten by a patch. */
+	private Integer changedBlocks;
+
+}
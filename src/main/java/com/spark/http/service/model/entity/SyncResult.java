@@ -0,0 +1,39 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SyncResult {
+
+	private String localPath;
+	private String remotePath;
+	private Boolean dryRun;
+
+	private Integer files;
+	private Integer unchangedFiles;
+	private Integer patchedFiles;
+	private Integer uploadedFiles;
+
+	/** Size of all synced files. */
+	private Long totalBytes;
+
+	/** Bytes actually sent over the wire. */
+	private Long transferredBytes;
+
+	/** Bytes a full upload would have sent on top of {@code transferredBytes}. */
+	private Long bytesSaved;
+
+	/** Files that were patched or uploaded. */
+	private List<SyncFileResult> changes;
+
+	private Long durationMillis;
+
+}
@@ -0,0 +1,14 @@
+package com.spark.http.service.model.entity;
+
+/**
+ * Threads that HTTP requests and blocking ssh work run on.
+ */
+public enum ThreadMode {
+
+	/** Platform threads from bounded pools, concurrency is limited by the thread count. */
+	PLATFORM,
+
+	/** A virtual thread per task, needs Java 24 or later at runtime. */
+	VIRTUAL
+
+}
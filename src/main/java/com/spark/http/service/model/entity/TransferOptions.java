@@ -0,0 +1,28 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Per-request transfer settings; null fields fall back to the configured defaults.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class TransferOptions {
+
+	private TransferProtocol protocol;
+
+	/** Continue after the bytes already present in the remote file instead of rewriting it. */
+	private Boolean resume;
+
+	/** Leave holes in the remote file instead of writing blocks of zeros. */
+	private Boolean sparse;
+
+	/** Ranges a local file upload is split into; ignored for streamed bodies and resumed uploads. */
+	private Integer parallelStreams;
+
+}
@@ -0,0 +1,11 @@
+package com.spark.http.service.model.entity;
+
+public enum TransferProtocol {
+
+	/** Pipelined writes; supports resume and sparse files. */
+	SFTP,
+
+	/** Single streamed copy; for servers without the sftp subsystem. */
+	SCP
+
+}
@@ -0,0 +1,32 @@
+package com.spark.http.service.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class TransferResult {
+
+	private String remotePath;
+	private TransferProtocol protocol;
+
+	/** Size of the remote file after the transfer. */
+	private Long totalBytes;
+
+	/** Bytes actually sent over the wire. */
+	private Long transferredBytes;
+
+	/** Bytes not sent because they were already present (resume) or zero (sparse). */
+	private Long skippedBytes;
+
+	/** SFTP channels the file was uploaded over. */
+	private Integer streams;
+
+	private Long durationMillis;
+	private Long bytesPerSecond;
+
+}
@@ -0,0 +1,21 @@
+package com.spark.http.service.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Immutable registry entry; every add or replace of a clientId produces a new version.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class VersionedClientInfo {
+
+	private final SSHClientInfo sshClientInfo;
+	private final long version;
+	private final Instant updatedAt;
+
+}
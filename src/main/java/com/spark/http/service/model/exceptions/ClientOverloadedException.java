@@ -0,0 +1,7 @@
+package com.spark.http.service.model.exceptions;
+
+public class ClientOverloadedException extends OverloadedException {
+	public ClientOverloadedException(String clientId, String reason, long retryAfterSeconds) {
+		super("too many concurrent requests for clientId: " + clientId + ", " + reason, retryAfterSeconds);
+	}
+}
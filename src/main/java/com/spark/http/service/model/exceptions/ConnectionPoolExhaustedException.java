@@ -0,0 +1,7 @@
+package com.spark.http.service.model.exceptions;
+
+public class ConnectionPoolExhaustedException extends RuntimeException {
+	public ConnectionPoolExhaustedException(String clientId, long waitMillis) {
+		super("no free ssh connection for clientId: " + clientId + " after " + waitMillis + " ms");
+	}
+}
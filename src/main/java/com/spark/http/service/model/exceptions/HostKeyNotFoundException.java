@@ -0,0 +1,7 @@
+package com.spark.http.service.model.exceptions;
+
+public class HostKeyNotFoundException extends RuntimeException {
+	public HostKeyNotFoundException(String hostId, String fingerprint) {
+		super("host key " + fingerprint + " not pinned for " + hostId);
+	}
+}
@@ -0,0 +1,7 @@
+package com.spark.http.service.model.exceptions;
+
+public class JobNotFoundException extends RuntimeException {
+	public JobNotFoundException(String jobId) {
+		super("job not founded with: " + jobId);
+	}
+}
@@ -0,0 +1,8 @@
+package com.spark.http.service.model.exceptions;
+
+/** The compressed request body could not be inflated; the client sent a corrupt or truncated stream. */
+public class MalformedBodyException extends RuntimeException {
+	public MalformedBodyException(String encoding, Throwable cause) {
+		super("Malformed " + encoding + " body: " + cause.getMessage(), cause);
+	}
+}
@@ -0,0 +1,16 @@
+package com.spark.http.service.model.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public abstract class OverloadedException extends RuntimeException {
+
+	/** When the caller should try again, sent as the Retry-After header. */
+	private final long retryAfterSeconds;
+
+	protected OverloadedException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+}
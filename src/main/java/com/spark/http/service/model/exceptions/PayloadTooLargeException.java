@@ -0,0 +1,7 @@
+package com.spark.http.service.model.exceptions;
+
+public class PayloadTooLargeException extends RuntimeException {
+	public PayloadTooLargeException(long maxBytes) {
+		super("payload exceeds the upload limit of " + maxBytes + " bytes");
+	}
+}
@@ -0,0 +1,7 @@
+package com.spark.http.service.model.exceptions;
+
+public class ServiceOverloadedException extends OverloadedException {
+	public ServiceOverloadedException(String reason, long retryAfterSeconds) {
+		super("service overloaded, " + reason, retryAfterSeconds);
+	}
+}
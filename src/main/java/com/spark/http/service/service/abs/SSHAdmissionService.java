@@ -0,0 +1,27 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.AdmissionStats;
+
+import java.io.IOException;
+
+public interface SSHAdmissionService {
+
+	/**
+	 * Runs the work once the client and the service are below their concurrency limits, waiting
+	 * in a bounded FIFO queue for a free slot.
+	 *
+	 * @throws com.spark.http.service.model.exceptions.ClientOverloadedException the client's queue is full or the wait ran out
+	 * @throws com.spark.http.service.model.exceptions.ServiceOverloadedException the global queue is full or the wait ran out
+	 */
+	<T> T admit(String clientId, Admitted<T> work) throws IOException;
+
+	AdmissionStats getStats();
+
+	/** Drops the gate of a deleted client and its meters; callers holding a slot finish normally. */
+	void remove(String clientId);
+
+	interface Admitted<T> {
+		T run() throws IOException;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.BatchCMD;
+import com.spark.http.service.model.entity.BatchResult;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface SSHBatchService {
+
+	List<BatchResult> execute(BatchCMD batchCMD) throws IOException;
+
+	void execute(BatchCMD batchCMD, ResultListener listener) throws IOException;
+
+	@FunctionalInterface
+	interface ResultListener {
+		void onResult(BatchResult batchResult) throws IOException;
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.entity.VersionedClientInfo;
+
+import java.util.Map;
+
+public interface SSHClientRegistry {
+
+	VersionedClientInfo get(String clientId);
+
+	VersionedClientInfo put(String clientId, SSHClientInfo sshClientInfo);
+
+	VersionedClientInfo putIfAbsent(String clientId, SSHClientInfo sshClientInfo);
+
+	boolean replace(String clientId, long expectedVersion, SSHClientInfo sshClientInfo);
+
+	VersionedClientInfo remove(String clientId);
+
+	boolean remove(String clientId, long expectedVersion);
+
+	Map<String, VersionedClientInfo> entries();
+
+	Map<String, SSHClientInfo> snapshot();
+
+}
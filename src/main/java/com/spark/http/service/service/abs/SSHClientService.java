@@ -3,28 +3,35 @@ package com.spark.http.service.service.abs;
 import com.spark.http.service.model.entity.CMD;
 import com.spark.http.service.model.entity.SSHClientInfo;
 import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.service.impl.CommandControl;
+import com.spark.http.service.service.impl.OutputCollector;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 public interface SSHClientService {
 	SSHClientInfo getClientSession(String clientId);
 
 	Map<String, SSHClientInfo> getSessions();
 
+	/** Union of the given clientIds and the clients carrying {@code tag}; fails when nothing is selected. */
+	Set<String> selectClients(Collection<String> clientIds, String tag);
+
 	void deleteSession(String clientId);
 
 	SSHCommandResult execute(String clientId, CMD CMD) throws Exception;
 
-	void addClientSession(String clientId, SSHClientInfo sshClientInfo);
-
-	void writeJson(String clientId, String url, String json) throws IOException;
+	SSHCommandResult execute(String clientId, CMD CMD, OutputCollector stdout, OutputCollector stderr) throws IOException;
 
-	void uploadFile(String clientId, String localFilePath, String remoteFilePath) throws IOException;
+	/** Runs the command so that it can be stopped through {@code control} from another thread. */
+	SSHCommandResult execute(String clientId, CMD CMD, OutputCollector stdout, OutputCollector stderr,
+							 CommandControl control) throws IOException;
 
-	void writeToRemoteFile(String clientId, String remoteFilePath, byte[] data) throws IOException;
+	void executeStreaming(String clientId, CMD CMD, OutputStream outputStream) throws IOException;
 
-	Boolean checkConnection(String clientId);
-	Map<String, Boolean> checkConnections();
+	void addClientSession(String clientId, SSHClientInfo sshClientInfo);
 
 }
@@ -0,0 +1,39 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.service.impl.PooledConnection;
+import net.schmizz.sshj.SSHClient;
+
+import java.io.IOException;
+
+public interface SSHConnectionPool {
+
+	PooledConnection borrow(String clientId, SSHClientInfo sshClientInfo) throws IOException;
+
+	void release(PooledConnection connection);
+
+	void invalidate(PooledConnection connection);
+
+	PooledConnection reconnect(PooledConnection connection) throws IOException;
+
+	PooledConnection saturated(PooledConnection connection) throws IOException;
+
+	void evict(String clientId);
+
+	/**
+	 * Opens a channel on a pooled transport and runs the callback on it. Opening is retried on
+	 * another transport when the server refuses the channel or a reused transport turns out to
+	 * be dead; the callback itself runs at most once. Closeable channels are closed afterwards.
+	 */
+	<C, T> T withChannel(String clientId, SSHClientInfo sshClientInfo,
+						 ChannelOpener<C> opener, ChannelCallback<C, T> callback) throws IOException;
+
+	interface ChannelOpener<C> {
+		C open(SSHClient client) throws IOException;
+	}
+
+	interface ChannelCallback<C, T> {
+		T apply(C channel) throws IOException;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.Distribution;
+import com.spark.http.service.model.entity.DistributionResult;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface SSHDistributionService {
+
+	List<DistributionResult> distribute(Distribution distribution) throws IOException;
+
+	/** Reports RUNNING progress snapshots while hosts receive, then the final result of every host. */
+	void distribute(Distribution distribution, ResultListener listener) throws IOException;
+
+	interface ResultListener {
+		void onResult(DistributionResult distributionResult) throws IOException;
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.ConnectionStatus;
+import com.spark.http.service.model.entity.ProbeLevel;
+
+import java.util.List;
+
+public interface SSHHealthCheckService {
+
+	/** Cached status of the client, never blocks on the network. */
+	ConnectionStatus getStatus(String clientId);
+
+	/** Cached statuses of all registered clients, never blocks on the network. */
+	List<ConnectionStatus> getStatuses();
+
+	/** Probes the client on the calling thread and caches the result; {@code null} level - the deep level. */
+	ConnectionStatus check(String clientId, ProbeLevel level);
+
+	/** Schedules a background probe of the client; {@code null} level - the deep level. */
+	void refresh(String clientId, ProbeLevel level);
+
+	/** Schedules a background probe of every registered client; {@code null} level - the deep level. */
+	void refreshAll(ProbeLevel level);
+
+}
@@ -0,0 +1,35 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.KnownHost;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import net.schmizz.sshj.transport.verification.HostKeyVerifier;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface SSHHostKeyService {
+
+	/** Verifier for connections of the client, applying its {@link com.spark.http.service.model.entity.HostKeyMode}. */
+	HostKeyVerifier verifier(SSHClientInfo sshClientInfo);
+
+	List<KnownHost> getKnownHosts();
+
+	/** Keys trusted for the address of the client; an empty key list when none are. */
+	KnownHost getKnownHost(String clientId);
+
+	/**
+	 * Trusts the key for the address of the client.
+	 *
+	 * @param publicKey key in known_hosts format, {@code null} - the key the server presents now
+	 * @param replace drop the keys trusted so far
+	 */
+	KnownHost pin(String clientId, String publicKey, boolean replace) throws IOException;
+
+	/**
+	 * Stops trusting a key for the address of the client.
+	 *
+	 * @param fingerprint {@code SHA256:} fingerprint of the key, {@code null} - all keys
+	 */
+	KnownHost revoke(String clientId, String fingerprint);
+
+}
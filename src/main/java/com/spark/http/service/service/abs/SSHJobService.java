@@ -0,0 +1,21 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.CommandJob;
+import com.spark.http.service.model.entity.SSHCommandResult;
+
+import java.util.List;
+
+public interface SSHJobService {
+
+	CommandJob submit(String clientId, CMD CMD);
+
+	CommandJob getJob(String jobId);
+
+	List<CommandJob> getJobs();
+
+	SSHCommandResult getOutput(String jobId);
+
+	CommandJob cancel(String jobId);
+
+}
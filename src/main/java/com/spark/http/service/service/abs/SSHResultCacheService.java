@@ -0,0 +1,27 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.ResultCacheStats;
+import com.spark.http.service.model.entity.SSHCommandResult;
+
+public interface SSHResultCacheService {
+
+	/**
+	 * Returns the cached result of the same command on the same client when the command asks for
+	 * caching through {@code cacheTtlSeconds}, otherwise runs the loader. Concurrent callers of a
+	 * command that is not cached yet wait for a single run and share its result.
+	 */
+	SSHCommandResult get(String clientId, CMD CMD, Loader loader) throws Exception;
+
+	/** Drops the cached results of the client, only those of {@code cmd} when it is set. */
+	void invalidate(String clientId, String cmd);
+
+	void invalidateAll();
+
+	ResultCacheStats getStats();
+
+	interface Loader {
+		SSHCommandResult load() throws Exception;
+	}
+
+}
@@ -0,0 +1,12 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.Sync;
+import com.spark.http.service.model.entity.SyncResult;
+
+import java.io.IOException;
+
+public interface SSHSyncService {
+
+	SyncResult sync(String clientId, Sync sync) throws IOException;
+
+}
@@ -0,0 +1,40 @@
+package com.spark.http.service.service.abs;
+
+import com.spark.http.service.model.entity.TransferOptions;
+import com.spark.http.service.model.entity.TransferResult;
+import com.spark.http.service.service.impl.LocalFileSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.function.LongConsumer;
+
+public interface SSHTransferService {
+
+	TransferResult upload(String clientId, String localFilePath, String remoteFilePath, TransferOptions options) throws IOException;
+
+	/**
+	 * Uploads an already opened local file; the source can be shared by concurrent uploads.
+	 *
+	 * @param progress receives the number of bytes read for the transfer as it goes, may be null
+	 */
+	TransferResult upload(String clientId, LocalFileSource source, String remoteFilePath,
+						  TransferOptions options, LongConsumer progress) throws IOException;
+
+	/**
+	 * Rewrites only the given blocks of the remote file over SFTP and sets its size to the
+	 * source length; the rest of the remote file is left as it is.
+	 *
+	 * @param blocks indexes of the {@code blockSize} blocks to write
+	 */
+	TransferResult patch(String clientId, LocalFileSource source, String remoteFilePath, int blockSize, BitSet blocks) throws IOException;
+
+	/**
+	 * Streams {@code data} to the remote file; rejected with {@code PayloadTooLargeException} once it
+	 * exceeds {@code ssh.transfer.max-upload-bytes}.
+	 *
+	 * @param length number of bytes in {@code data}, -1 when unknown (not supported by SCP)
+	 */
+	TransferResult write(String clientId, String remoteFilePath, InputStream data, long length, TransferOptions options) throws IOException;
+
+}
@@ -0,0 +1,226 @@
+package com.spark.http.service.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Durable string-keyed map kept as a snapshot plus a write-ahead log of changes. Every change is
+ * appended to {@code <name>.wal} as one record: payload length, CRC32 of the payload and the
+ * JSON payload itself. Once the log holds {@code compactionThreshold} records, the whole map is
+ * written to a temporary file that atomically replaces {@code <name>.snapshot}, and the log is
+ * cleared.
+ * <p>
+ * Loading reads the snapshot and replays the log up to the first incomplete or damaged record,
+ * which is what a crash in the middle of an append leaves behind; the log is cut back to the
+ * last good record. Replaying a log that is already part of the snapshot is harmless, every
+ * record sets or removes a key.
+ * <p>
+ * An append that fails is cut off the log before the error is thrown, so later records do not
+ * end up behind a torn one that loading would stop at. A change fails only when its record could
+ * not be logged; a failed compaction is logged and retried on the next change.
+ */
+public class AppendOnlyStore<V> implements Closeable {
+
+	private static final Logger log = LogManager.getLogger(AppendOnlyStore.class);
+
+	private static final int HEADER_BYTES = 8;
+	private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+	private final Path snapshotFile;
+	private final Path walFile;
+	private final ObjectReader reader;
+	private final ObjectWriter writer;
+	private final boolean syncWrites;
+	private final int compactionThreshold;
+
+	private final Map<String, V> state = new HashMap<>();
+	private FileChannel wal;
+	private int walRecords;
+
+	public AppendOnlyStore(Path directory, String name, Class<V> type, ObjectMapper objectMapper,
+						   boolean syncWrites, int compactionThreshold) {
+		this.snapshotFile = directory.resolve(name + ".snapshot");
+		this.walFile = directory.resolve(name + ".wal");
+		JavaType recordType = objectMapper.getTypeFactory().constructParametricType(Record.class, type);
+		this.reader = objectMapper.readerFor(recordType);
+		this.writer = objectMapper.writerFor(recordType);
+		this.syncWrites = syncWrites;
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	/** Opens the store and returns its content. */
+	public synchronized Map<String, V> load() throws IOException {
+
+		Files.createDirectories(snapshotFile.getParent());
+		state.clear();
+
+		if (Files.exists(snapshotFile)) {
+			long valid = replay(snapshotFile);
+			if (valid < Files.size(snapshotFile)) log.warn("Snapshot {} is damaged after {} bytes", snapshotFile, valid);
+		}
+
+		wal = openLog(walFile);
+		long valid = replay(walFile);
+		if (valid < wal.size()) {
+			log.warn("Dropping incomplete tail of {}: {} of {} bytes are valid", walFile, valid, wal.size());
+			wal.truncate(valid);
+			wal.force(true);
+		}
+		wal.position(valid);
+
+		log.info("Loaded {} entries from {} ({} log records)", state.size(), snapshotFile, walRecords);
+		return Collections.unmodifiableMap(new HashMap<>(state));
+	}
+
+	/** Fails only when the change could not be logged, the content is unchanged then. */
+	public synchronized void put(String key, V value) throws IOException {
+		append(key, value);
+		state.put(key, value);
+		compactIfNeeded();
+	}
+
+	public synchronized void remove(String key) throws IOException {
+		append(key, null);
+		state.remove(key);
+		compactIfNeeded();
+	}
+
+	/** Writes the current content as the new snapshot and clears the log. */
+	public synchronized void compact() throws IOException {
+
+		Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (Map.Entry<String, V> entry : state.entrySet()) {
+				write(out, record(entry.getKey(), entry.getValue()));
+			}
+			out.force(true);
+		}
+		Files.move(tmp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		// a crash before this point replays the old log over the new snapshot, which changes nothing
+		wal.truncate(0);
+		wal.position(0);
+		wal.force(true);
+
+		log.debug("Compacted {} log records into {} with {} entries", walRecords, snapshotFile, state.size());
+		walRecords = 0;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (wal != null) wal.close();
+	}
+
+	/** Opens the log for reading and appending. */
+	FileChannel openLog(Path file) throws IOException {
+		return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private void append(String key, V value) throws IOException {
+		byte[] record = record(key, value);
+		long position = wal.position();
+		try {
+			write(wal, record);
+			if (syncWrites) wal.force(false);
+		} catch (IOException e) {
+			try {
+				wal.truncate(position);
+				wal.position(position);
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+		walRecords++;
+	}
+
+	/** The record is already logged, so a failed compaction must not fail the change. */
+	private void compactIfNeeded() {
+		if (compactionThreshold <= 0 || walRecords < compactionThreshold) return;
+
+		try {
+			compact();
+		} catch (IOException e) {
+			log.warn("Could not compact {}, retrying on the next change: {}", walFile, e.getMessage(), e);
+		}
+	}
+
+	/** Applies the records of the file to {@link #state} and returns the length of its valid prefix. */
+	private long replay(Path file) throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		boolean isWal = file.equals(walFile);
+		CRC32 crc = new CRC32();
+
+		while (buffer.remaining() >= HEADER_BYTES) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (length < 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) return start;
+
+			crc.reset();
+			crc.update(buffer.array(), buffer.position(), length);
+			if ((int) crc.getValue() != checksum) return start;
+
+			Record<V> record = reader.readValue(buffer.array(), buffer.position(), length);
+			buffer.position(buffer.position() + length);
+
+			if (record.v != null) {
+				state.put(record.k, record.v);
+			} else {
+				state.remove(record.k);
+			}
+			if (isWal) walRecords++;
+		}
+		return buffer.position();
+	}
+
+	private byte[] record(String key, V value) throws IOException {
+		Record<V> record = new Record<>();
+		record.k = key;
+		record.v = value;
+		return writer.writeValueAsBytes(record);
+	}
+
+	private static void write(FileChannel channel, byte[] payload) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+		buffer.putInt(payload.length);
+		buffer.putInt((int) crc.getValue());
+		buffer.put(payload);
+		buffer.flip();
+
+		while (buffer.hasRemaining()) channel.write(buffer);
+	}
+
+	/** Log record: sets key {@code k} to {@code v}, or removes it when {@code v} is absent. */
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private static class Record<V> {
+
+		public String k;
+		public V v;
+
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.spark.http.service.service.impl;
+
+import java.io.IOException;
+
+/**
+ * Sequential source of a transfer, read a chunk at a time.
+ */
+interface ChunkReader {
+
+	/** Fills {@code chunk} as far as the source allows; returns 0 once it is exhausted. */
+	int read(byte[] chunk) throws IOException;
+
+	void skip(long bytes) throws IOException;
+
+}
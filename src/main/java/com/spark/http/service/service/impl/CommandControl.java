@@ -0,0 +1,58 @@
+package com.spark.http.service.service.impl;
+
+import net.schmizz.sshj.connection.channel.direct.Session;
+
+import java.util.function.Consumer;
+
+/**
+ * Lets another thread stop a command run by {@link SSHClientServiceImpl}. Stopping is done by
+ * the service: it signals the remote process and closes the channel when the process does not
+ * exit in time, which ends the output reads of the running thread. A command stopped before it
+ * has started is stopped as soon as it starts.
+ */
+public class CommandControl {
+
+	private Session.Command command;
+	private Consumer<Session.Command> stopper;
+	private boolean stopped;
+	private boolean timedOut;
+
+	/** Stops the command; {@code false} when it was already stopped. */
+	public boolean cancel() {
+		return stop(false);
+	}
+
+	/** Whether a running command was reached; {@code false} while it has not started or after it finished. */
+	public synchronized boolean isRunning() {
+		return command != null;
+	}
+
+	public synchronized boolean isStopped() {
+		return stopped;
+	}
+
+	public synchronized boolean isTimedOut() {
+		return timedOut;
+	}
+
+	synchronized boolean stop(boolean timeout) {
+		if (stopped) return false;
+
+		stopped = true;
+		timedOut = timeout;
+		if (command != null) stopper.accept(command);
+		return true;
+	}
+
+	synchronized void attach(Session.Command command, Consumer<Session.Command> stopper) {
+		this.command = command;
+		this.stopper = stopper;
+		if (stopped) stopper.accept(command);
+	}
+
+	/** Called once the command has finished, a later stop must not touch its channel. */
+	synchronized void detach() {
+		command = null;
+	}
+
+}
@@ -0,0 +1,133 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.model.entity.LocalReadMode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Local file opened once and read by any number of concurrent readers. Readers only use
+ * positional reads; in MAPPED mode they share the mapped windows, so uploading the same file to
+ * many hosts maps and pages it in only once.
+ * <p>
+ * sshj takes the payload of an SFTP write as a byte[], so chunks land in a heap array either
+ * way; MAPPED mode saves the read syscall per chunk by copying from a mapped window.
+ */
+public class LocalFileSource implements Closeable {
+
+	private final FileChannel channel;
+	private final long length;
+	private final LocalReadMode mode;
+	private final int regionSize;
+	private final Map<Long, MappedByteBuffer> regions = new HashMap<>();
+
+	public LocalFileSource(Path path, LocalReadMode mode, int regionSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.length = channel.size();
+		this.mode = mode;
+		this.regionSize = regionSize;
+	}
+
+	public long length() {
+		return length;
+	}
+
+	public String sha256() throws IOException {
+		return sha256(0, length);
+	}
+
+	/** Hex SHA-256 of the byte range [{@code start}, {@code end}). */
+	public String sha256(long start, long end) throws IOException {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		ChunkReader reader = reader(start, end);
+		byte[] chunk = new byte[64 * 1024];
+		int bytesRead;
+		while ((bytesRead = reader.read(chunk)) > 0) {
+			digest.update(chunk, 0, bytesRead);
+		}
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/** Reads the byte range [{@code start}, {@code end}). */
+	ChunkReader reader(long start, long end) {
+		return new ChunkReader() {
+
+			private long position = start;
+
+			@Override
+			public int read(byte[] chunk) throws IOException {
+				int length = (int) Math.min(chunk.length, end - position);
+				if (length <= 0) return 0;
+
+				int bytesRead = mode == LocalReadMode.MAPPED
+						? readMapped(position, chunk, length)
+						: readChannel(position, chunk, length);
+				position += bytesRead;
+				return bytesRead;
+			}
+
+			@Override
+			public void skip(long bytes) {
+				position = Math.min(end, position + bytes);
+			}
+
+		};
+	}
+
+	private int readChannel(long position, byte[] chunk, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) break;
+		}
+		return buffer.position();
+	}
+
+	private int readMapped(long position, byte[] chunk, int length) throws IOException {
+		int total = 0;
+		while (total < length) {
+			long index = (position + total) / regionSize;
+			ByteBuffer region = region(index).duplicate();
+			region.position((int) (position + total - index * regionSize));
+
+			int n = Math.min(length - total, region.remaining());
+			region.get(chunk, total, n);
+			total += n;
+		}
+		return total;
+	}
+
+	private synchronized MappedByteBuffer region(long index) throws IOException {
+		MappedByteBuffer region = regions.get(index);
+		if (region == null) {
+			long start = index * regionSize;
+			region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, length - start));
+			regions.put(index, region);
+		}
+		return region;
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.spark.http.service.service.impl;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class NamedThreadFactory implements ThreadFactory {
+
+	private final String prefix;
+	private final AtomicInteger counter = new AtomicInteger();
+
+	NamedThreadFactory(String prefix) {
+		this.prefix = prefix;
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
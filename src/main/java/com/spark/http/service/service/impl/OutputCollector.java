@@ -0,0 +1,150 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHExecutionProperties;
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.OutputLimitMode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Captures a command output stream with bulk reads, keeping at most {@code maxBytes} of it.
+ * The backing array grows on demand, so short outputs do not pay for the full limit.
+ */
+public class OutputCollector {
+
+	private static final int READ_BUFFER_SIZE = 8192;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final int maxBytes;
+	private final OutputLimitMode mode;
+
+	private byte[] data = new byte[0];
+	private int start;
+	private int size;
+	private long totalBytes;
+	private boolean truncated;
+
+	public OutputCollector(int maxBytes, OutputLimitMode mode) {
+		this.maxBytes = Math.max(0, maxBytes);
+		this.mode = mode;
+	}
+
+	/** Collector honouring the per-command limit overrides, falling back to the configured defaults. */
+	public static OutputCollector forCommand(CMD CMD, SSHExecutionProperties executionProperties) {
+		int maxOutputBytes = CMD.getMaxOutputBytes() != null ? CMD.getMaxOutputBytes() : executionProperties.getMaxOutputBytes();
+		OutputLimitMode outputLimitMode = CMD.getOutputLimitMode() != null ? CMD.getOutputLimitMode() : executionProperties.getOutputLimitMode();
+		return new OutputCollector(maxOutputBytes, outputLimitMode);
+	}
+
+	/**
+	 * Reads the stream until EOF, or until the limit is reached in {@link OutputLimitMode#TRUNCATE} mode.
+	 *
+	 * @return {@code false} if reading stopped before EOF
+	 */
+	public boolean collect(InputStream inputStream) throws IOException {
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = inputStream.read(buffer)) != -1) {
+			write(buffer, 0, bytesRead);
+			if (mode == OutputLimitMode.TRUNCATE && isTruncated()) return false;
+		}
+		return true;
+	}
+
+	public synchronized void write(byte[] bytes, int offset, int length) {
+		totalBytes += length;
+		if (mode == OutputLimitMode.TAIL) {
+			appendTail(bytes, offset, length);
+		} else {
+			appendHead(bytes, offset, length);
+		}
+	}
+
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public synchronized boolean isTruncated() {
+		return truncated;
+	}
+
+	public synchronized byte[] toByteArray() {
+		byte[] result = new byte[size];
+		int first = Math.min(size, data.length - start);
+		System.arraycopy(data, start, result, 0, first);
+		System.arraycopy(data, 0, result, first, size - first);
+		return result;
+	}
+
+	public String toString(Charset charset) {
+		byte[] bytes = toByteArray();
+		int from = 0;
+		if (mode == OutputLimitMode.TAIL && isTruncated() && StandardCharsets.UTF_8.equals(charset)) {
+			// the cut may have landed inside a multi-byte sequence
+			while (from < bytes.length && from < 3 && (bytes[from] & 0xC0) == 0x80) from++;
+		}
+		return new String(bytes, from, bytes.length - from, charset);
+	}
+
+	private void appendHead(byte[] bytes, int offset, int length) {
+		int accepted = Math.min(length, maxBytes - size);
+		if (accepted < length) truncated = true;
+		if (accepted <= 0) return;
+
+		ensureCapacity(size + accepted);
+		System.arraycopy(bytes, offset, data, size, accepted);
+		size += accepted;
+	}
+
+	private void appendTail(byte[] bytes, int offset, int length) {
+		if (size + length > maxBytes) truncated = true;
+
+		if (length >= maxBytes) {
+			ensureCapacity(maxBytes);
+			System.arraycopy(bytes, offset + length - maxBytes, data, 0, maxBytes);
+			start = 0;
+			size = maxBytes;
+			return;
+		}
+
+		int overflow = size + length - maxBytes;
+		if (overflow <= 0) {
+			ensureCapacity(size + length);
+			int position = (start + size) % data.length;
+			int first = Math.min(length, data.length - position);
+			System.arraycopy(bytes, offset, data, position, first);
+			System.arraycopy(bytes, offset + first, data, 0, length - first);
+			size += length;
+			return;
+		}
+
+		ensureCapacity(maxBytes);
+		start = (start + overflow) % maxBytes;
+		size -= overflow;
+
+		int position = (start + size) % maxBytes;
+		int first = Math.min(length, maxBytes - position);
+		System.arraycopy(bytes, offset, data, position, first);
+		System.arraycopy(bytes, offset + first, data, 0, length - first);
+		size += length;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= data.length) return;
+
+		int newCapacity = Math.min(maxBytes, Math.max(capacity, Math.max(INITIAL_CAPACITY, data.length * 2)));
+		if (start == 0) {
+			data = Arrays.copyOf(data, newCapacity);
+		} else {
+			byte[] grown = new byte[newCapacity];
+			System.arraycopy(toByteArray(), 0, grown, 0, size);
+			data = grown;
+			start = 0;
+		}
+	}
+
+}
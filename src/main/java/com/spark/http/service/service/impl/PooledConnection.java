@@ -0,0 +1,66 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.model.entity.SSHClientInfo;
+import lombok.Getter;
+import net.schmizz.sshj.SSHClient;
+
+import java.io.IOException;
+
+/**
+ * Authenticated transport shared by several channel leases. Channel accounting fields are
+ * guarded by the owning {@link SSHConnectionPoolImpl.HostPool} lock.
+ */
+@Getter
+public class PooledConnection {
+
+	private final SSHConnectionPoolImpl.HostPool hostPool;
+	private final String clientId;
+	private final SSHClientInfo sshClientInfo;
+	private final SSHClient client;
+	private final long createdAt = System.currentTimeMillis();
+	private volatile long lastUsedAt = createdAt;
+	private volatile boolean reused;
+	private volatile int activeChannels;
+	private volatile int maxChannels;
+	private volatile boolean retired;
+
+	PooledConnection(SSHConnectionPoolImpl.HostPool hostPool, String clientId, SSHClientInfo sshClientInfo,
+					 SSHClient client, int maxChannels) {
+		this.hostPool = hostPool;
+		this.clientId = clientId;
+		this.sshClientInfo = sshClientInfo;
+		this.client = client;
+		this.maxChannels = maxChannels;
+	}
+
+	public boolean isAlive() {
+		return client.isConnected() && client.isAuthenticated();
+	}
+
+	void acquireChannel() {
+		activeChannels++;
+	}
+
+	void releaseChannel() {
+		activeChannels--;
+		lastUsedAt = System.currentTimeMillis();
+		reused = true;
+	}
+
+	/** Called when the server refused a channel: its MaxSessions is the number already open. */
+	void limitChannels() {
+		maxChannels = Math.max(1, activeChannels - 1);
+	}
+
+	void retire() {
+		retired = true;
+	}
+
+	void close() {
+		try {
+			client.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+}
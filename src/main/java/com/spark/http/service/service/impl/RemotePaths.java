@@ -0,0 +1,26 @@
+package com.spark.http.service.service.impl;
+
+/**
+ * Remote paths as SFTP, SCP and the remote shell see them. Paths end up in shell command lines
+ * built by several services, so the resolving and quoting rules live only here.
+ */
+final class RemotePaths {
+
+	private RemotePaths() {
+	}
+
+	/**
+	 * SFTP, SCP and the shell all resolve relative paths against the home directory, but only the
+	 * shell expands "~", so a leading "~/" is dropped and "~" alone becomes ".".
+	 */
+	static String resolve(String path) {
+		if (path.equals("~")) return ".";
+		return path.startsWith("~/") ? path.substring(2) : path;
+	}
+
+	/** Single-quotes the value for a POSIX shell; an embedded quote becomes {@code '\''}. */
+	static String quote(String value) {
+		return "'" + value.replace("'", "'\\''") + "'";
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHAdmissionProperties;
+import com.spark.http.service.model.entity.AdmissionGateStats;
+import com.spark.http.service.model.entity.AdmissionStats;
+import com.spark.http.service.model.exceptions.ClientOverloadedException;
+import com.spark.http.service.model.exceptions.ServiceOverloadedException;
+import com.spark.http.service.service.abs.SSHAdmissionService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the connection pool. A caller first takes a slot of its
+ * clientId and then one of the global limit; both are fair semaphores, so waiting callers are
+ * served in arrival order. Only a bounded number of callers may wait for each limit, the rest
+ * are rejected at once, and a waiting caller gives up after {@code maxQueueMillis}. Rejections
+ * carry a Retry-After estimate: the time the queue ahead needs to drain at the average slot
+ * hold time.
+ * <p>
+ * A client slot is held while waiting for a global one, so one busy client queues behind its
+ * own limit and cannot fill the global queue.
+ * <p>
+ * Every gate is also registered as {@code ssh.admission.*} meters, tagged with its clientId,
+ * {@code none} for the global limit. The gate of a client and its meters go away when the client
+ * is deleted.
+ */
+@Service
+public class SSHAdmissionServiceImpl implements SSHAdmissionService {
+
+	private final SSHAdmissionProperties properties;
+	private final MeterRegistry registry;
+	private final Gate global;
+	private final Map<String, Gate> clients = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SSHAdmissionServiceImpl(SSHAdmissionProperties properties, MeterRegistry registry) {
+		this.properties = properties;
+		this.registry = registry;
+		this.global = new Gate(properties.getMaxConcurrent(), properties.getMaxQueued()).register("none");
+	}
+
+	@Override
+	public <T> T admit(String clientId, Admitted<T> work) throws IOException {
+
+		if (!properties.isEnabled()) return work.run();
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getMaxQueueMillis());
+		Gate client = clients.computeIfAbsent(clientId,
+				id -> new Gate(properties.getMaxConcurrentPerClient(), properties.getMaxQueuedPerClient()).register(id));
+
+		String refused = client.acquire(deadline);
+		if (refused != null) throw new ClientOverloadedException(clientId, refused, client.retryAfterSeconds());
+
+		long clientAdmitted = System.nanoTime();
+		try {
+			refused = global.acquire(deadline);
+			if (refused != null) throw new ServiceOverloadedException(refused, global.retryAfterSeconds());
+
+			long admitted = System.nanoTime();
+			try {
+				return work.run();
+			} finally {
+				global.release(admitted);
+			}
+		} finally {
+			client.release(clientAdmitted);
+		}
+	}
+
+	@Override
+	public AdmissionStats getStats() {
+
+		Map<String, AdmissionGateStats> clientStats = new TreeMap<>();
+		clients.forEach((clientId, gate) -> clientStats.put(clientId, gate.stats()));
+
+		AdmissionStats stats = new AdmissionStats();
+		stats.setGlobal(global.stats());
+		stats.setClients(clientStats);
+		return stats;
+	}
+
+	@Override
+	public void remove(String clientId) {
+		Gate gate = clients.remove(clientId);
+		if (gate != null) gate.meters.forEach(registry::remove);
+	}
+
+	private class Gate {
+
+		private final int limit;
+		private final int maxQueued;
+		private final Semaphore permits;
+		private final AtomicInteger queued = new AtomicInteger();
+
+		private final LongAdder admitted = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+		private final LongAdder timedOut = new LongAdder();
+		private final LongAdder waitNanos = new LongAdder();
+		private final AtomicLong maxWaitNanos = new AtomicLong();
+		private final LongAdder holdNanos = new LongAdder();
+		private final LongAdder released = new LongAdder();
+		private final List<Meter> meters = new ArrayList<>();
+
+		Gate(int limit, int maxQueued) {
+			this.limit = limit;
+			this.maxQueued = maxQueued;
+			this.permits = new Semaphore(limit, true);
+		}
+
+		Gate register(String clientId) {
+			Tags tags = Tags.of("clientId", clientId);
+
+			meters.add(Gauge.builder("ssh.admission.in.flight", this, gate -> gate.limit - gate.permits.availablePermits())
+					.description("Requests holding an admission slot").tags(tags).register(registry));
+			meters.add(Gauge.builder("ssh.admission.queued", queued, AtomicInteger::get)
+					.description("Requests waiting for an admission slot").tags(tags).register(registry));
+			meters.add(FunctionCounter.builder("ssh.admission.rejected", rejected, LongAdder::sum)
+					.description("Requests rejected because the queue was full").tags(tags).register(registry));
+			meters.add(FunctionCounter.builder("ssh.admission.timed.out", timedOut, LongAdder::sum)
+					.description("Requests that gave up waiting for a slot").tags(tags).register(registry));
+			meters.add(FunctionTimer.builder("ssh.admission.wait", this, gate -> gate.admitted.sum(), gate -> gate.waitNanos.sum(), TimeUnit.NANOSECONDS)
+					.description("Time admitted requests waited for their slot").tags(tags).register(registry));
+			return this;
+		}
+
+		/** Takes a slot; returns why the caller was refused, {@code null} when admitted. */
+		String acquire(long deadline) throws IOException {
+
+			long started = System.nanoTime();
+			try {
+				// the timed variant honours fairness, a plain tryAcquire would barge ahead of the queue
+				if (!permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+					if (queued.incrementAndGet() > maxQueued) {
+						queued.decrementAndGet();
+						rejected.increment();
+						return "queue of " + maxQueued + " is full";
+					}
+					try {
+						if (!permits.tryAcquire(deadline - started, TimeUnit.NANOSECONDS)) {
+							timedOut.increment();
+							return "no free slot after " + properties.getMaxQueueMillis() + " ms";
+						}
+					} finally {
+						queued.decrementAndGet();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for a free slot", e);
+			}
+
+			long waited = System.nanoTime() - started;
+			admitted.increment();
+			waitNanos.add(waited);
+			maxWaitNanos.accumulateAndGet(waited, Math::max);
+			return null;
+		}
+
+		void release(long acquiredAt) {
+			holdNanos.add(System.nanoTime() - acquiredAt);
+			released.increment();
+			permits.release();
+		}
+
+		long retryAfterSeconds() {
+			long count = released.sum();
+			double averageHoldNanos = count == 0 ? 0 : (double) holdNanos.sum() / count;
+			double drainNanos = (queued.get() + 1) * averageHoldNanos / limit;
+
+			long seconds = (long) Math.ceil(drainNanos / TimeUnit.SECONDS.toNanos(1));
+			return Math.max(1, Math.min(properties.getMaxRetryAfterSeconds(), seconds));
+		}
+
+		AdmissionGateStats stats() {
+			long count = admitted.sum();
+
+			AdmissionGateStats stats = new AdmissionGateStats();
+			stats.setLimit(limit);
+			stats.setInFlight(limit - permits.availablePermits());
+			stats.setQueued(queued.get());
+			stats.setAdmitted(count);
+			stats.setRejected(rejected.sum());
+			stats.setTimedOut(timedOut.sum());
+			stats.setAverageWaitMillis(count == 0 ? 0 : waitNanos.sum() / 1e6 / count);
+			stats.setMaxWaitMillis(TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+			return stats;
+		}
+
+	}
+
+}
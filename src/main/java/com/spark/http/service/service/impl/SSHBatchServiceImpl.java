@@ -0,0 +1,126 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHBatchProperties;
+import com.spark.http.service.model.entity.BatchCMD;
+import com.spark.http.service.model.entity.BatchResult;
+import com.spark.http.service.model.entity.HostResultStatus;
+import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.service.abs.SSHBatchService;
+import com.spark.http.service.service.abs.SSHClientService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class SSHBatchServiceImpl implements SSHBatchService {
+
+	private static final Logger log = LogManager.getLogger(SSHBatchServiceImpl.class);
+
+	private final SSHClientService sshClientService;
+	private final SSHBatchProperties batchProperties;
+	private final SSHThreads threads;
+
+	private ThreadPoolExecutor executor;
+
+	@Autowired
+	public SSHBatchServiceImpl(SSHClientService sshClientService, SSHBatchProperties batchProperties, SSHThreads threads) {
+		this.sshClientService = sshClientService;
+		this.batchProperties = batchProperties;
+		this.threads = threads;
+	}
+
+	@Override
+	public List<BatchResult> execute(BatchCMD batchCMD) throws IOException {
+		List<BatchResult> results = new ArrayList<>();
+		execute(batchCMD, results::add);
+		return results;
+	}
+
+	@Override
+	public void execute(BatchCMD batchCMD, ResultListener listener) throws IOException {
+
+		Set<String> clientIds = sshClientService.selectClients(batchCMD.getClientIds(), batchCMD.getTag());
+		if (batchCMD.getTimeoutSeconds() == null) batchCMD.setTimeoutSeconds(batchProperties.getDefaultTimeoutSeconds());
+
+		log.info("Running batch command on {} clients - Command: {}", clientIds.size(), batchCMD.getCmd());
+
+		CompletionService<BatchResult> completionService = new ExecutorCompletionService<>(executor);
+		List<Future<BatchResult>> futures = new ArrayList<>();
+
+		try {
+			for (String clientId : clientIds) {
+				futures.add(completionService.submit(() -> runOnHost(clientId, batchCMD)));
+			}
+
+			for (int i = 0; i < futures.size(); i++) {
+				listener.onResult(completionService.take().get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for batch results", e);
+		} catch (ExecutionException e) {
+			// runOnHost reports host failures in its result, anything thrown here is a fault of the service
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw new IOException("Batch task failed: " + e.getCause().getMessage(), e.getCause());
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+	}
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(batchProperties.getPoolSize(), batchProperties.getPoolSize(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(batchProperties.getQueueCapacity()),
+				threads.factory("ssh-batch"));
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The per-host timeout is the command's execution timeout; waiting for a slot, connecting
+	 * and authenticating are bounded by the admission and connection timeouts.
+	 */
+	private BatchResult runOnHost(String clientId, BatchCMD batchCMD) {
+
+		BatchResult batchResult = new BatchResult();
+		batchResult.setClientId(clientId);
+
+		long started = System.nanoTime();
+		try {
+			SSHCommandResult result = sshClientService.execute(clientId, batchCMD);
+			batchResult.setResult(result);
+			if (Boolean.TRUE.equals(result.getTimedOut())) {
+				batchResult.setStatus(HostResultStatus.TIMED_OUT);
+				batchResult.setError("timed out after " + batchCMD.getTimeoutSeconds() + " s");
+			} else {
+				batchResult.setStatus(HostResultStatus.SUCCEEDED);
+			}
+		} catch (Exception e) {
+			batchResult.setStatus(HostResultStatus.FAILED);
+			batchResult.setError(e.getMessage());
+		}
+
+		batchResult.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return batchResult;
+	}
+
+}
@@ -0,0 +1,229 @@
+package com.spark.http.service.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.http.service.config.SSHStoreProperties;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.entity.VersionedClientInfo;
+import com.spark.http.service.service.abs.SSHClientRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of clients. Writers use the atomic {@link ConcurrentHashMap} operations, readers
+ * iterate weakly consistent views or copies, so listing and health checks never block
+ * registrations and never see {@link java.util.ConcurrentModificationException}.
+ * <p>
+ * A change is applied to the map first and written to the {@link AppendOnlyStore} after the map
+ * operation, so a slow disk does not hold the map lock of the clientId's bin. Writes go through
+ * the store one at a time, including fsync and compaction. Every change carries a new version,
+ * and a write is skipped when a newer change of the same client is already in the log, so the
+ * log ends with the same entry as the map. A change that could not be written is rolled back
+ * unless a newer one replaced it in the meantime.
+ */
+@Service
+public class SSHClientRegistryImpl implements SSHClientRegistry {
+
+	private static final Logger log = LogManager.getLogger(SSHClientRegistryImpl.class);
+
+	private final ConcurrentHashMap<String, VersionedClientInfo> clients = new ConcurrentHashMap<>();
+	private final AtomicLong versions = new AtomicLong();
+
+	/** Version of the last change written per clientId, guarded by {@link #writeLock}. */
+	private final Map<String, Long> writtenVersions = new HashMap<>();
+	private final Object writeLock = new Object();
+
+	private final SSHStoreProperties storeProperties;
+	private final AppendOnlyStore<SSHClientInfo> store;
+
+	@Autowired
+	public SSHClientRegistryImpl(SSHStoreProperties storeProperties, ObjectMapper objectMapper) {
+		this.storeProperties = storeProperties;
+		this.store = new AppendOnlyStore<>(Paths.get(storeProperties.getDirectory()), "clients", SSHClientInfo.class,
+				objectMapper, storeProperties.isSyncWrites(), storeProperties.getCompactionThreshold());
+	}
+
+	@Override
+	public VersionedClientInfo get(String clientId) {
+		return clients.get(clientId);
+	}
+
+	@Override
+	public VersionedClientInfo put(String clientId, SSHClientInfo sshClientInfo) {
+		VersionedClientInfo[] previous = new VersionedClientInfo[1];
+		VersionedClientInfo entry = clients.compute(clientId, (id, current) -> {
+			previous[0] = current;
+			return newEntry(sshClientInfo);
+		});
+		persist(clientId, entry, previous[0]);
+		return entry;
+	}
+
+	@Override
+	public VersionedClientInfo putIfAbsent(String clientId, SSHClientInfo sshClientInfo) {
+		VersionedClientInfo[] previous = new VersionedClientInfo[1];
+		VersionedClientInfo entry = clients.compute(clientId, (id, current) -> {
+			previous[0] = current;
+			return current != null ? current : newEntry(sshClientInfo);
+		});
+		if (previous[0] == null) persist(clientId, entry, null);
+		return previous[0];
+	}
+
+	@Override
+	public boolean replace(String clientId, long expectedVersion, SSHClientInfo sshClientInfo) {
+		VersionedClientInfo[] previous = new VersionedClientInfo[1];
+		VersionedClientInfo entry = clients.computeIfPresent(clientId, (id, current) -> {
+			if (current.getVersion() != expectedVersion) return current;
+
+			previous[0] = current;
+			return newEntry(sshClientInfo);
+		});
+		if (previous[0] == null) return false;
+
+		persist(clientId, entry, previous[0]);
+		return true;
+	}
+
+	@Override
+	public VersionedClientInfo remove(String clientId) {
+		VersionedClientInfo[] removed = new VersionedClientInfo[1];
+		long[] version = new long[1];
+		clients.computeIfPresent(clientId, (id, current) -> {
+			removed[0] = current;
+			version[0] = versions.incrementAndGet();
+			return null;
+		});
+		if (removed[0] != null) persistRemoval(clientId, version[0], removed[0]);
+		return removed[0];
+	}
+
+	@Override
+	public boolean remove(String clientId, long expectedVersion) {
+		VersionedClientInfo[] removed = new VersionedClientInfo[1];
+		long[] version = new long[1];
+		clients.computeIfPresent(clientId, (id, current) -> {
+			if (current.getVersion() != expectedVersion) return current;
+
+			removed[0] = current;
+			version[0] = versions.incrementAndGet();
+			return null;
+		});
+		if (removed[0] == null) return false;
+
+		persistRemoval(clientId, version[0], removed[0]);
+		return true;
+	}
+
+	@Override
+	public Map<String, VersionedClientInfo> entries() {
+		return Collections.unmodifiableMap(new HashMap<>(clients));
+	}
+
+	@Override
+	public Map<String, SSHClientInfo> snapshot() {
+		Map<String, SSHClientInfo> snapshot = new HashMap<>();
+		clients.forEach((clientId, entry) -> snapshot.put(clientId, entry.getSshClientInfo()));
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	@PostConstruct
+	public void init() throws IOException {
+		long started = System.nanoTime();
+
+		store.load().forEach((clientId, sshClientInfo) -> clients.put(clientId, newEntry(sshClientInfo)));
+		if (clients.isEmpty()) importLegacyClients();
+
+		log.info("Loaded {} clients in {} ms", clients.size(), (System.nanoTime() - started) / 1_000_000);
+	}
+
+	@PreDestroy
+	public void destroy() throws IOException {
+		store.close();
+	}
+
+	/** Imports the Java-serialized map written by earlier versions and renames the file so it is read only once. */
+	@SuppressWarnings("unchecked")
+	private void importLegacyClients() {
+
+		Path legacyFile = Paths.get(storeProperties.getLegacyClientsFile());
+		if (!Files.isRegularFile(legacyFile)) return;
+
+		try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(legacyFile))) {
+			((Map<String, SSHClientInfo>) ois.readObject()).forEach(this::putIfAbsent);
+		} catch (IOException | ClassNotFoundException | UncheckedIOException e) {
+			log.warn("Could not import clients from {}: {}", legacyFile, e.getMessage(), e);
+			return;
+		}
+
+		try {
+			Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".imported"));
+		} catch (IOException e) {
+			log.warn("Could not rename {} after import: {}", legacyFile, e.getMessage());
+		}
+		log.info("Imported {} clients from {}", clients.size(), legacyFile);
+	}
+
+	/** Writes the new entry; when that fails, the map goes back to {@code previous} unless the entry was replaced since. */
+	private void persist(String clientId, VersionedClientInfo entry, VersionedClientInfo previous) {
+		try {
+			write(clientId, entry.getVersion(), entry.getSshClientInfo());
+		} catch (UncheckedIOException e) {
+			if (previous != null) {
+				clients.replace(clientId, entry, previous);
+			} else {
+				clients.remove(clientId, entry);
+			}
+			throw e;
+		}
+	}
+
+	private void persistRemoval(String clientId, long version, VersionedClientInfo removed) {
+		try {
+			write(clientId, version, null);
+		} catch (UncheckedIOException e) {
+			clients.putIfAbsent(clientId, removed);
+			throw e;
+		}
+	}
+
+	/** Appends the change unless a newer change of the client is already in the log. */
+	private void write(String clientId, long version, SSHClientInfo sshClientInfo) {
+		synchronized (writeLock) {
+			Long written = writtenVersions.get(clientId);
+			if (written != null && written > version) return;
+
+			try {
+				if (sshClientInfo == null) {
+					store.remove(clientId);
+				} else {
+					store.put(clientId, sshClientInfo);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not persist client " + clientId + ": " + e.getMessage(), e);
+			}
+			writtenVersions.put(clientId, version);
+		}
+	}
+
+	private VersionedClientInfo newEntry(SSHClientInfo sshClientInfo) {
+		return new VersionedClientInfo(sshClientInfo, versions.incrementAndGet(), Instant.now());
+	}
+
+}
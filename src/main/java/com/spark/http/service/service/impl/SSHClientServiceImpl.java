@@ -1,265 +1,328 @@
 package com.spark.http.service.service.impl;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.spark.http.service.config.SSHExecutionProperties;
 import com.spark.http.service.model.entity.CMD;
 import com.spark.http.service.model.entity.SSHClientInfo;
 import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.model.entity.VersionedClientInfo;
 import com.spark.http.service.model.exceptions.ClientIdNotFoundException;
-import com.spark.http.service.model.exceptions.CustomFileNotFoundException;
+import com.spark.http.service.service.abs.SSHAdmissionService;
+import com.spark.http.service.service.abs.SSHClientRegistry;
 import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.service.abs.SSHConnectionPool;
+import com.spark.http.service.service.abs.SSHResultCacheService;
 import net.schmizz.sshj.SSHClient;
-import net.schmizz.sshj.connection.ConnectionException;
 import net.schmizz.sshj.connection.channel.direct.Session;
-import net.schmizz.sshj.transport.TransportException;
-import net.schmizz.sshj.transport.verification.PromiscuousVerifier;
+import net.schmizz.sshj.connection.channel.direct.Signal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+/**
+ * Runs commands on pooled channels. Every command has an execution timeout, taken from the
+ * request, the client or the configuration; when it runs out, or the command is cancelled
+ * through its {@link CommandControl}, the remote process gets {@code ssh.execution.cancel-signal}
+ * and its channel is closed after {@code ssh.execution.cancel-grace-millis} if it is still open.
+ * Closing the channel ends the output reads, so the calling thread and the pooled connection are
+ * always released.
+ * <p>
+ * The exec request and the output reads are timed by {@link SSHMetrics}, running commands are
+ * counted in its in-flight gauge.
+ */
 @Service
 public class SSHClientServiceImpl implements SSHClientService {
 
-	@JsonIgnore
-	private Map<String, SSHClientInfo> clientsMap = new HashMap<>();
+	private static final Logger log = LogManager.getLogger(SSHClientServiceImpl.class);
+
+	private final SSHClientRegistry clientRegistry;
+	private final SSHConnectionPool connectionPool;
+	private final SSHExecutionProperties executionProperties;
+	private final SSHKeyCache keyCache;
+	private final SSHMetrics metrics;
+	private final SSHThreads threads;
+	private final SSHResultCacheService resultCache;
+	private final SSHAdmissionService admissionService;
+
+	private final ExecutorService outputReaders;
+	private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ssh-command-watchdog"));
+
+	@Autowired
+	public SSHClientServiceImpl(SSHClientRegistry clientRegistry,
+								SSHConnectionPool connectionPool,
+								SSHExecutionProperties executionProperties,
+								SSHKeyCache keyCache,
+								SSHMetrics metrics,
+								SSHThreads threads,
+								SSHResultCacheService resultCache,
+								SSHAdmissionService admissionService) {
+		this.clientRegistry = clientRegistry;
+		this.connectionPool = connectionPool;
+		this.executionProperties = executionProperties;
+		this.keyCache = keyCache;
+		this.metrics = metrics;
+		this.threads = threads;
+		this.resultCache = resultCache;
+		this.admissionService = admissionService;
+		this.outputReaders = threads.perTask("ssh-stderr-reader");
+	}
 
 	@Override
 	public SSHClientInfo getClientSession(String clientId) {
 
-		if(!clientsMap.containsKey(clientId)) throw new ClientIdNotFoundException(clientId);
+		VersionedClientInfo entry = clientRegistry.get(clientId);
+		if(entry == null) throw new ClientIdNotFoundException(clientId);
 
-		return clientsMap.get(clientId);
+		return entry.getSshClientInfo();
 	}
 
 	@Override
 	public Map<String, SSHClientInfo> getSessions() {
-		return clientsMap;
-	}
-
-	@Override
-	public void deleteSession(String clientId) {
-
-		if(!clientsMap.containsKey(clientId)) throw new ClientIdNotFoundException(clientId);
-
-		clientsMap.remove(clientId);
+		return clientRegistry.snapshot();
 	}
 
 	@Override
-	public SSHCommandResult execute(String clientId, CMD CMD) throws Exception {
+	public Set<String> selectClients(Collection<String> clientIds, String tag) {
 
-		return executeCMD(clientId, session -> {
-			SSHCommandResult sshCommandResult = new SSHCommandResult();
+		Set<String> selected = new LinkedHashSet<>();
+		if (clientIds != null) selected.addAll(clientIds);
 
-			try {
-				session.allocateDefaultPTY();
-				Session.Command cmd = session.exec(CMD.getCmd());
-				InputStream commandOutput = cmd.getInputStream();
-				sshCommandResult.setOutput(convertStreamToString(commandOutput));
-			} catch (IOException e) {
-				throw new RuntimeException(e);
+		if (tag != null) {
+			for (Map.Entry<String, SSHClientInfo> entry : getSessions().entrySet()) {
+				Set<String> tags = entry.getValue().getTags();
+				if (tags != null && tags.contains(tag)) selected.add(entry.getKey());
 			}
+		}
 
-			return sshCommandResult;
-
-		});
+		if (selected.isEmpty()) throw new IllegalArgumentException("no clients selected: set clientIds or a matching tag");
 
+		return selected;
 	}
 
-
 	@Override
-	public void addClientSession(String clientId, SSHClientInfo sshClientInfo) {
-		clientsMap.put(clientId, sshClientInfo);
+	public void deleteSession(String clientId) {
+
+		if(clientRegistry.remove(clientId) == null) throw new ClientIdNotFoundException(clientId);
+
+		connectionPool.evict(clientId);
+		resultCache.invalidate(clientId, null);
+		admissionService.remove(clientId);
 	}
 
 	@Override
-	public void writeJson(String clientId, String path, String json) throws IOException {
-		executeCMD(clientId, session -> {
-			try (InputStream jsonStream = new ByteArrayInputStream(json.getBytes());
-				 OutputStream fileStream = session.exec("echo '" + json + "' > " + path).getOutputStream()) {
-				byte[] buffer = new byte[4096];
-				int bytesRead;
-				while ((bytesRead = jsonStream.read(buffer)) != -1) {
-					fileStream.write(buffer, 0, bytesRead);
-				}
-			} catch (TransportException e) {
-				throw new RuntimeException("Transport error occurred: " + e.getMessage(), e);
-			} catch (ConnectionException e) {
-				throw new RuntimeException("Connection error occurred for client " + clientId + ": " + e.getMessage(), e);
-			} catch (IOException e) {
-				throw new RuntimeException("I/O error occurred: " + e.getMessage(), e);
-			}
-		});
+	public SSHCommandResult execute(String clientId, CMD CMD) throws Exception {
+		return resultCache.get(clientId, CMD, () -> execute(clientId, CMD,
+				OutputCollector.forCommand(CMD, executionProperties),
+				OutputCollector.forCommand(CMD, executionProperties)));
 	}
 
 	@Override
-	public void uploadFile(String clientId, String localFilePath, String remoteFilePath) throws IOException {
-		executeCMD(clientId, session -> {
-			try(FileInputStream inputStream = new FileInputStream(localFilePath);
-				OutputStream outputStream = session.exec("cat > " + remoteFilePath).getOutputStream()) {
-				byte[] buffer = new byte[4096];
-				int bytesRead;
-				while ((bytesRead = inputStream.read(buffer)) != -1) {
-					outputStream.write(buffer, 0, bytesRead);
-				}
-
-			} catch (FileNotFoundException e) {
-				throw new CustomFileNotFoundException("File not found: " + localFilePath, e);
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
-		});
+	public SSHCommandResult execute(String clientId, CMD CMD, OutputCollector stdout, OutputCollector stderr) throws IOException {
+		return execute(clientId, CMD, stdout, stderr, new CommandControl());
 	}
 
 	@Override
-	public void writeToRemoteFile(String clientId, String remoteFilePath, byte[] data) throws IOException {
-		executeCMD(clientId, session -> {
-			try (InputStream dataStream = new ByteArrayInputStream(data);
-				 OutputStream fileStream = session.exec("cat > " + remoteFilePath).getOutputStream()) {
-				byte[] buffer = new byte[4096];
-				int bytesRead;
-				while ((bytesRead = dataStream.read(buffer)) != -1) {
-					fileStream.write(buffer, 0, bytesRead);
-				}
+	public SSHCommandResult execute(String clientId, CMD CMD, OutputCollector stdout, OutputCollector stderr,
+									CommandControl control) throws IOException {
+
+		SSHClientInfo sshClientInfo = getClientSession(clientId);
+		long timeoutMillis = timeoutMillis(CMD, sshClientInfo);
+
+		return executeCMD(clientId, sshClientInfo, session -> {
+			try {
+				return metrics.inFlight("execute", () -> {
+					boolean pty = !Boolean.FALSE.equals(CMD.getPty());
+
+					Session.Command cmd = metrics.time(SSHMetrics.EXEC, clientId, "execute", () -> {
+						if (pty) session.allocateDefaultPTY();
+						return session.exec(CMD.getCmd());
+					});
+
+					SSHCommandResult result = metrics.time(SSHMetrics.OUTPUT_READ, clientId, "execute", () ->
+							supervise(clientId, cmd, control, timeoutMillis, () -> collectOutput(cmd, pty, stdout, stderr, control)));
+
+					metrics.outputBytes(clientId, "stdout", result.getStdoutBytes());
+					metrics.outputBytes(clientId, "stderr", result.getStderrBytes());
+					return result;
+				});
 			} catch (IOException e) {
 				throw new RuntimeException(e);
 			}
 		});
-	}
 
-	@Override
-	public Boolean checkConnection(String clientId) {
-
-		if(!clientsMap.containsKey(clientId)) throw new ClientIdNotFoundException(clientId);
-
-		try {
-			executeCMD(clientId, session -> {});
-			return true;
-		} catch (Throwable e) {
-			return false;
-		}
 	}
 
 	@Override
-	public Map<String, Boolean> checkConnections() {
+	public void executeStreaming(String clientId, CMD CMD, OutputStream outputStream) throws IOException {
 
-		Map<String, Boolean> connectionResults = new HashMap<>();
+		SSHClientInfo sshClientInfo = getClientSession(clientId);
+		long timeoutMillis = timeoutMillis(CMD, sshClientInfo);
 
-		clientsMap.entrySet()
-				.parallelStream()
-				.forEach(entry -> {
-					String clientId = entry.getKey();
-					boolean isConnected = checkConnection(clientId);
-					connectionResults.put(clientId, isConnected);
+		executeCMD(clientId, sshClientInfo, session -> {
+			try {
+				metrics.inFlight("stream", () -> {
+					Session.Command cmd = metrics.time(SSHMetrics.EXEC, clientId, "stream", () -> {
+						session.allocateDefaultPTY();
+						return session.exec(CMD.getCmd());
+					});
+
+					long streamed = metrics.time(SSHMetrics.OUTPUT_READ, clientId, "stream", () ->
+							supervise(clientId, cmd, new CommandControl(), timeoutMillis, () -> {
+								InputStream commandOutput = cmd.getInputStream();
+
+								long total = 0;
+								byte[] buffer = new byte[executionProperties.getStreamBufferSize()];
+								int bytesRead;
+								while ((bytesRead = commandOutput.read(buffer)) != -1) {
+									outputStream.write(buffer, 0, bytesRead);
+									outputStream.flush();
+									total += bytesRead;
+								}
+								return total;
+							}));
+
+					metrics.outputBytes(clientId, "stdout", streamed);
+					return null;
 				});
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
 
-		return connectionResults;
 	}
 
-	private static final String FILE_NAME = "clientsMap.ser";
-
-	@PostConstruct
-	public void init() {
-		loadClientsMap();
+	@Override
+	public void addClientSession(String clientId, SSHClientInfo sshClientInfo) {
+		keyCache.prewarm(clientId, sshClientInfo);
+		clientRegistry.put(clientId, sshClientInfo);
+		connectionPool.evict(clientId);
+		resultCache.invalidate(clientId, null);
 	}
 
 	@PreDestroy
 	public void destroy() {
-		saveClientsMap();
+		watchdog.shutdownNow();
+		outputReaders.shutdownNow();
 	}
 
-	private void saveClientsMap() {
-		try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(Paths.get(SSHClientServiceImpl.FILE_NAME)))) {
-			oos.writeObject(clientsMap);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
+	/** Runs the work on the started command, stopping the command when its timeout runs out. */
+	private <T> T supervise(String clientId, Session.Command cmd, CommandControl control,
+							long timeoutMillis, CommandWork<T> work) throws IOException {
+
+		control.attach(cmd, this::stop);
+		ScheduledFuture<?> timeout = timeoutMillis <= 0 ? null : watchdog.schedule(() -> {
+			if (control.stop(true)) log.warn("Command on client with ID: {} timed out after {} ms", clientId, timeoutMillis);
+		}, timeoutMillis, TimeUnit.MILLISECONDS);
 
-	private void loadClientsMap() {
-		try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(Paths.get(SSHClientServiceImpl.FILE_NAME)))) {
-			clientsMap = (Map<String, SSHClientInfo>) ois.readObject();
-		} catch (IOException | ClassNotFoundException e) {
-			e.printStackTrace();
+		try {
+			return work.run();
+		} finally {
+			if (timeout != null) timeout.cancel(false);
+			control.detach();
 		}
 	}
 
+	/** Asks the remote process to exit and closes the channel if it is still open after the grace period. */
+	private void stop(Session.Command cmd) {
 
-	private static String convertStreamToString(InputStream inputStream) throws IOException {
-		StringBuilder stringBuilder = new StringBuilder();
-		int character;
-		while ((character = inputStream.read()) != -1) {
-			stringBuilder.append((char) character);
+		Signal signal = executionProperties.getCancelSignal();
+		try {
+			cmd.signal(signal);
+		} catch (IOException e) {
+			log.debug("Could not send {} to command: {}", signal, e.getMessage());
 		}
-		return stringBuilder.toString();
-	}
 
-	private <T> T executeCMD(String clientId, Function<Session, T> fun) throws IOException {
+		// closing waits for the server's reply, it must not hold up the watchdog thread
+		watchdog.schedule(() -> outputReaders.execute(() -> {
+			try {
+				if (cmd.isOpen()) cmd.close();
+			} catch (IOException e) {
+				log.debug("Could not close channel of stopped command: {}", e.getMessage());
+			}
+		}), executionProperties.getCancelGraceMillis(), TimeUnit.MILLISECONDS);
+	}
 
-		if(!clientsMap.containsKey(clientId)) throw new ClientIdNotFoundException(clientId);
+	private long timeoutMillis(CMD CMD, SSHClientInfo sshClientInfo) {
+		Integer timeoutSeconds = CMD.getTimeoutSeconds();
+		if (timeoutSeconds == null) timeoutSeconds = sshClientInfo.getCommandTimeoutSeconds();
+		if (timeoutSeconds == null) timeoutSeconds = executionProperties.getCommandTimeoutSeconds();
 
-		SSHClientInfo sshclientInfo = clientsMap.get(clientId);
-		try(SSHClient ssh = new SSHClient()) {
+		return TimeUnit.SECONDS.toMillis(timeoutSeconds);
+	}
 
-			ssh.addHostKeyVerifier(new PromiscuousVerifier());
+	private SSHCommandResult collectOutput(Session.Command cmd, boolean pty, OutputCollector stdout,
+										   OutputCollector stderr, CommandControl control) throws IOException {
 
-			ssh.loadKnownHosts();
-			ssh.connect(sshclientInfo.getHost(), sshclientInfo.getPort());
+		// with a pty the remote side merges stderr into stdout, so there is nothing to read concurrently
+		Future<?> stderrReader = pty ? null : outputReaders.submit(() -> {
+			if (!stderr.collect(cmd.getErrorStream())) cmd.close();
+			return null;
+		});
 
-			if (sshclientInfo.getPassword() != null ) {
-				ssh.authPassword(sshclientInfo.getUser(), sshclientInfo.getPassword());
-			} else {
-				if (sshclientInfo.getKeyFilePath() != null) {
-					ssh.authPublickey(sshclientInfo.getUser(), sshclientInfo.getKeyFilePath());
-				} else {
-					ssh.authPublickey(sshclientInfo.getUser());
-				}
-			}
+		if (!stdout.collect(cmd.getInputStream())) cmd.close();
 
-			try (Session session = ssh.startSession()) {
-				return fun.apply(session);
+		if (stderrReader == null) {
+			stderr.collect(cmd.getErrorStream());
+		} else {
+			try {
+				stderrReader.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while reading stderr", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+				throw new RuntimeException(e.getCause());
 			}
-
-		} catch (IOException e) {
-			throw e;
 		}
 
-	}
-
-	private void executeCMD(String clientId, Consumer<Session> fun) throws IOException {
-
-		if(!clientsMap.containsKey(clientId)) throw new ClientIdNotFoundException(clientId);
+		cmd.join();
 
-		SSHClientInfo sshclientInfo = clientsMap.get(clientId);
-		try (SSHClient ssh = new SSHClient()) {
+		Charset charset = executionProperties.getOutputCharset();
 
-			ssh.addHostKeyVerifier(new PromiscuousVerifier());
-
-			ssh.loadKnownHosts();
-			ssh.connect(sshclientInfo.getHost(), sshclientInfo.getPort());
-
-			if (sshclientInfo.getPassword() != null) {
-				ssh.authPassword(sshclientInfo.getUser(), sshclientInfo.getPassword());
-			} else {
-				if (sshclientInfo.getKeyFilePath() != null) {
-					ssh.authPublickey(sshclientInfo.getUser(), sshclientInfo.getKeyFilePath());
-				} else {
-					ssh.authPublickey(sshclientInfo.getUser());
-				}
-			}
+		SSHCommandResult sshCommandResult = new SSHCommandResult();
+		sshCommandResult.setOutput(stdout.toString(charset));
+		sshCommandResult.setStderr(stderr.toString(charset));
+		sshCommandResult.setExitStatus(cmd.getExitStatus());
+		if (cmd.getExitSignal() != null) sshCommandResult.setExitSignal(cmd.getExitSignal().name());
+		sshCommandResult.setTruncated(stdout.isTruncated() || stderr.isTruncated());
+		sshCommandResult.setStdoutBytes(stdout.getTotalBytes());
+		sshCommandResult.setStderrBytes(stderr.getTotalBytes());
+		sshCommandResult.setTimedOut(control.isTimedOut());
+		return sshCommandResult;
+	}
 
-			try (Session session = ssh.startSession()) {
-				fun.accept(session);
-			}
+	private <T> T executeCMD(String clientId, SSHClientInfo sshClientInfo, Function<Session, T> fun) throws IOException {
+		return connectionPool.withChannel(clientId, sshClientInfo, SSHClient::startSession, fun::apply);
+	}
 
-		}
+	private void executeCMD(String clientId, SSHClientInfo sshClientInfo, Consumer<Session> fun) throws IOException {
+		executeCMD(clientId, sshClientInfo, session -> {
+			fun.accept(session);
+			return null;
+		});
+	}
 
+	private interface CommandWork<T> {
+		T run() throws IOException;
 	}
 
 
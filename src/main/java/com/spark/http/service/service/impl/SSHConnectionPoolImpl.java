@@ -0,0 +1,361 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHPoolProperties;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.exceptions.ConnectionPoolExhaustedException;
+import com.spark.http.service.service.abs.SSHAdmissionService;
+import com.spark.http.service.service.abs.SSHConnectionPool;
+import net.schmizz.sshj.SSHClient;
+import net.schmizz.sshj.connection.ConnectionException;
+import net.schmizz.sshj.connection.channel.OpenFailException;
+import net.schmizz.sshj.transport.TransportException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a few authenticated transports per clientId and hands out channel leases on them.
+ * Every {@link #borrow} reserves one channel on the least loaded transport, opening a new
+ * transport only when all existing ones are at their session limit. When the host reaches
+ * its channel limit callers queue until a lease is released or the wait time runs out.
+ * {@link #withChannel} first passes {@link SSHAdmissionService}, which sheds load before it
+ * reaches the pool.
+ */
+@Service
+public class SSHConnectionPoolImpl implements SSHConnectionPool {
+
+	private static final Logger log = LogManager.getLogger(SSHConnectionPoolImpl.class);
+
+	private final SSHPoolProperties properties;
+	private final SSHConnector connector;
+	private final SSHAdmissionService admissionService;
+	private final SSHMetrics metrics;
+	private final Map<String, HostPool> hostPools = new ConcurrentHashMap<>();
+	private ScheduledExecutorService evictor;
+
+	@Autowired
+	public SSHConnectionPoolImpl(SSHPoolProperties properties, SSHConnector connector, SSHAdmissionService admissionService,
+								 SSHMetrics metrics) {
+		this.properties = properties;
+		this.connector = connector;
+		this.admissionService = admissionService;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public PooledConnection borrow(String clientId, SSHClientInfo sshClientInfo) throws IOException {
+
+		HostPool hostPool = hostPools.computeIfAbsent(clientId, id -> new HostPool());
+		PooledConnection connection = hostPool.lease(clientId, sshClientInfo, properties.getMaxWaitMillis());
+
+		if (connection != null) return connection;
+
+		try {
+			connection = connect(hostPool, clientId, sshClientInfo);
+		} catch (IOException | RuntimeException e) {
+			hostPool.connectFailed();
+			throw e;
+		}
+
+		hostPool.connected(connection);
+		return connection;
+	}
+
+	@Override
+	public void release(PooledConnection connection) {
+		connection.getHostPool().release(connection);
+	}
+
+	@Override
+	public void invalidate(PooledConnection connection) {
+		connection.getHostPool().remove(connection);
+		connection.close();
+	}
+
+	@Override
+	public PooledConnection reconnect(PooledConnection connection) throws IOException {
+		invalidate(connection);
+		return borrow(connection.getClientId(), connection.getSshClientInfo());
+	}
+
+	@Override
+	public PooledConnection saturated(PooledConnection connection) throws IOException {
+
+		HostPool hostPool = connection.getHostPool();
+		hostPool.limit(connection);
+
+		log.debug("Server refused a channel for clientId: {}, limiting transport to {} sessions",
+				connection.getClientId(), connection.getMaxChannels());
+
+		return borrow(connection.getClientId(), connection.getSshClientInfo());
+	}
+
+	@Override
+	public void evict(String clientId) {
+
+		HostPool hostPool = hostPools.remove(clientId);
+		if (hostPool == null) return;
+
+		hostPool.close();
+	}
+
+	@Override
+	public <C, T> T withChannel(String clientId, SSHClientInfo sshClientInfo,
+								ChannelOpener<C> opener, ChannelCallback<C, T> callback) throws IOException {
+		return admissionService.admit(clientId, () -> onChannel(clientId, sshClientInfo, opener, callback));
+	}
+
+	@PostConstruct
+	public void init() {
+		long interval = properties.getEvictionIntervalSeconds();
+		evictor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ssh-pool-evictor"));
+		evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		evictor.shutdownNow();
+		hostPools.keySet().forEach(this::evict);
+	}
+
+	private void evictIdle() {
+
+		long deadline = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(properties.getIdleTimeoutSeconds());
+
+		hostPools.forEach((clientId, hostPool) -> {
+			int evicted = hostPool.evictIdle(deadline);
+			if (evicted > 0) log.debug("Closed {} idle ssh connections for clientId: {}", evicted, clientId);
+		});
+	}
+
+	private <C, T> T onChannel(String clientId, SSHClientInfo sshClientInfo,
+							   ChannelOpener<C> opener, ChannelCallback<C, T> callback) throws IOException {
+
+		PooledConnection connection = borrow(clientId, sshClientInfo);
+
+		try {
+			C channel = null;
+			while (channel == null) {
+				try {
+					SSHClient client = connection.getClient();
+					channel = metrics.time(SSHMetrics.CHANNEL_OPEN, clientId, "channel", () -> opener.open(client));
+				} catch (OpenFailException e) {
+					if (connection.getActiveChannels() <= 1) throw e;
+
+					PooledConnection saturated = connection;
+					connection = null;
+					connection = saturated(saturated);
+				} catch (ConnectionException | TransportException e) {
+					if (!connection.isReused()) throw e;
+
+					PooledConnection stale = connection;
+					connection = null;
+					connection = reconnect(stale);
+				}
+			}
+
+			try {
+				return callback.apply(channel);
+			} finally {
+				if (channel instanceof Closeable) ((Closeable) channel).close();
+			}
+		} finally {
+			if (connection != null) release(connection);
+		}
+	}
+
+	private PooledConnection connect(HostPool hostPool, String clientId, SSHClientInfo sshclientInfo) throws IOException {
+
+		int connectTimeoutMillis = sshclientInfo.getConnectTimeoutMillis() != null
+				? sshclientInfo.getConnectTimeoutMillis() : properties.getConnectTimeoutMillis();
+		int authTimeoutMillis = sshclientInfo.getAuthTimeoutMillis() != null
+				? sshclientInfo.getAuthTimeoutMillis() : properties.getAuthTimeoutMillis();
+
+		SSHClient ssh = connector.connect(clientId, sshclientInfo, connectTimeoutMillis, authTimeoutMillis, properties.getKeepAliveIntervalSeconds());
+
+		log.debug("Opened pooled ssh connection for clientId: {}", clientId);
+		return new PooledConnection(hostPool, clientId, sshclientInfo, ssh, properties.getMaxSessionsPerConnection());
+	}
+
+	class HostPool {
+
+		private final ReentrantLock lock = new ReentrantLock(true);
+		private final Condition available = lock.newCondition();
+		private final List<PooledConnection> connections = new ArrayList<>();
+		private int pending;
+		private int activeChannels;
+		private boolean closed;
+
+		/**
+		 * Reserves a channel on an existing transport, or returns {@code null} when the caller
+		 * has been granted a slot to open a new one and must report back through
+		 * {@link #connected} or {@link #connectFailed}.
+		 */
+		PooledConnection lease(String clientId, SSHClientInfo sshClientInfo, long waitMillis) throws IOException {
+
+			long remaining = TimeUnit.MILLISECONDS.toNanos(waitMillis);
+
+			lock.lock();
+			try {
+				while (true) {
+					dropStale(sshClientInfo);
+
+					if (activeChannels < properties.getMaxChannelsPerHost()) {
+						PooledConnection connection = leastLoaded();
+						if (connection != null) {
+							connection.acquireChannel();
+							activeChannels++;
+							return connection;
+						}
+						if (connections.size() + pending < properties.getMaxSizePerHost()) {
+							pending++;
+							activeChannels++;
+							return null;
+						}
+					}
+
+					if (remaining <= 0) throw new ConnectionPoolExhaustedException(clientId, waitMillis);
+					remaining = available.awaitNanos(remaining);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for ssh connection", e);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void connected(PooledConnection connection) {
+			lock.lock();
+			try {
+				pending--;
+				connection.acquireChannel();
+				connections.add(connection);
+				if (closed) retire(connection);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void connectFailed() {
+			lock.lock();
+			try {
+				pending--;
+				activeChannels--;
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void release(PooledConnection connection) {
+			lock.lock();
+			try {
+				if (!connection.isRetired()) activeChannels--;
+				connection.releaseChannel();
+
+				if (!connection.isAlive()) {
+					retire(connection);
+				} else if (connection.isRetired() && connection.getActiveChannels() == 0) {
+					connection.close();
+				}
+
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void remove(PooledConnection connection) {
+			lock.lock();
+			try {
+				retire(connection);
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void limit(PooledConnection connection) {
+			lock.lock();
+			try {
+				connection.limitChannels();
+				if (!connection.isRetired()) activeChannels--;
+				connection.releaseChannel();
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		int evictIdle(long deadline) {
+			lock.lock();
+			try {
+				int evicted = 0;
+				for (PooledConnection connection : new ArrayList<>(connections)) {
+					if (connection.getActiveChannels() == 0
+							&& (connection.getLastUsedAt() < deadline || !connection.isAlive())) {
+						retire(connection);
+						evicted++;
+					}
+				}
+				return evicted;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void close() {
+			lock.lock();
+			try {
+				closed = true;
+				new ArrayList<>(connections).forEach(this::retire);
+				available.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void dropStale(SSHClientInfo sshClientInfo) {
+			for (PooledConnection connection : new ArrayList<>(connections)) {
+				if (connection.getSshClientInfo() != sshClientInfo || !connection.isAlive()) retire(connection);
+			}
+		}
+
+		/** Takes the transport out of rotation; it is closed once its last channel is released. */
+		private void retire(PooledConnection connection) {
+			if (!connection.isRetired()) {
+				connections.remove(connection);
+				activeChannels -= connection.getActiveChannels();
+				connection.retire();
+			}
+			if (connection.getActiveChannels() == 0) connection.close();
+		}
+
+		private PooledConnection leastLoaded() {
+			PooledConnection best = null;
+			for (PooledConnection connection : connections) {
+				if (connection.getActiveChannels() >= connection.getMaxChannels()) continue;
+				if (best == null || connection.getActiveChannels() < best.getActiveChannels()) best = connection;
+			}
+			return best;
+		}
+
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.service.abs.SSHHostKeyService;
+import net.schmizz.keepalive.KeepAliveProvider;
+import net.schmizz.sshj.DefaultConfig;
+import net.schmizz.sshj.SSHClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Opens authenticated transports. Shared by the connection pool and the health checks so
+ * both connect and authenticate the same way. Keys come from {@link SSHKeyCache} instead of
+ * being parsed for every connection, host keys are checked by {@link SSHHostKeyService}.
+ * The TCP connect, key exchange and authentication are timed separately by {@link SSHMetrics}.
+ */
+@Component
+public class SSHConnector {
+
+	private final SSHKeyCache keyCache;
+	private final SSHHostKeyService hostKeyService;
+	private final SSHMetrics metrics;
+
+	@Autowired
+	public SSHConnector(SSHKeyCache keyCache, SSHHostKeyService hostKeyService, SSHMetrics metrics) {
+		this.keyCache = keyCache;
+		this.hostKeyService = hostKeyService;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param connectTimeoutMillis socket connect timeout, 0 - none
+	 * @param authTimeoutMillis key exchange/auth response timeout, also used for later requests on the transport, 0 - sshj default
+	 * @param keepAliveIntervalSeconds keep-alive interval for long lived transports, 0 - none
+	 */
+	public SSHClient connect(String clientId, SSHClientInfo sshclientInfo, int connectTimeoutMillis, int authTimeoutMillis,
+							 int keepAliveIntervalSeconds) throws IOException {
+
+		SSHClient ssh = open(clientId, sshclientInfo, connectTimeoutMillis, authTimeoutMillis, keepAliveIntervalSeconds);
+		try {
+			metrics.time(SSHMetrics.AUTH, clientId, "connect", () -> {
+				authenticate(ssh, sshclientInfo);
+				return null;
+			});
+		} catch (IOException | RuntimeException e) {
+			ssh.close();
+			throw e;
+		}
+
+		return ssh;
+	}
+
+	/**
+	 * Connects and completes the key exchange without authenticating. The key exchange is
+	 * timed from the end of the TCP handshake to the end of the connect.
+	 */
+	public SSHClient open(String clientId, SSHClientInfo sshclientInfo, int connectTimeoutMillis, int authTimeoutMillis,
+						  int keepAliveIntervalSeconds) throws IOException {
+
+		DefaultConfig config = new DefaultConfig();
+		config.setKeepAliveProvider(KeepAliveProvider.KEEP_ALIVE);
+
+		SSHClient ssh = new SSHClient(config);
+		try {
+			ssh.setSocketFactory(metrics.socketFactory(clientId));
+			ssh.setConnectTimeout(connectTimeoutMillis);
+			if (authTimeoutMillis > 0) ssh.getTransport().setTimeoutMs(authTimeoutMillis);
+
+			ssh.addHostKeyVerifier(hostKeyService.verifier(sshclientInfo));
+			// offers zlib@openssh.com and zlib ahead of none, the server picks
+			if (Boolean.TRUE.equals(sshclientInfo.getCompression())) ssh.useCompression();
+
+			connect(ssh, clientId, sshclientInfo);
+			ssh.getConnection().getKeepAlive().setKeepAliveInterval(keepAliveIntervalSeconds);
+		} catch (IOException | RuntimeException e) {
+			ssh.close();
+			throw e;
+		}
+
+		return ssh;
+	}
+
+	private void connect(SSHClient ssh, String clientId, SSHClientInfo sshclientInfo) throws IOException {
+
+		Throwable failure = null;
+		try {
+			ssh.connect(sshclientInfo.getHost(), sshclientInfo.getPort());
+		} catch (IOException | RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			long connectedAt = SSHMetrics.connectedAt(ssh.getSocket());
+			if (connectedAt > 0) {
+				metrics.record(SSHMetrics.KEY_EXCHANGE, clientId, "connect",
+						System.nanoTime() - connectedAt, SSHMetrics.exception(failure));
+			}
+		}
+	}
+
+	public void authenticate(SSHClient ssh, SSHClientInfo sshclientInfo) throws IOException {
+		if (sshclientInfo.getPassword() != null) {
+			ssh.authPassword(sshclientInfo.getUser(), sshclientInfo.getPassword());
+		} else {
+			if (sshclientInfo.getKeyFilePath() != null) {
+				ssh.authPublickey(sshclientInfo.getUser(), keyCache.keyProvider(sshclientInfo.getKeyFilePath()));
+			} else {
+				ssh.authPublickey(sshclientInfo.getUser(), keyCache.defaultKeyProviders());
+			}
+		}
+	}
+
+}
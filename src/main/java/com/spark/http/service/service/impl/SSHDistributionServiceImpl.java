@@ -0,0 +1,294 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHDistributionProperties;
+import com.spark.http.service.config.SSHTransferProperties;
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.Distribution;
+import com.spark.http.service.model.entity.DistributionResult;
+import com.spark.http.service.model.entity.HostResultStatus;
+import com.spark.http.service.model.entity.LocalReadMode;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.model.entity.TransferOptions;
+import com.spark.http.service.model.entity.TransferProtocol;
+import com.spark.http.service.model.entity.TransferResult;
+import com.spark.http.service.model.exceptions.CustomFileNotFoundException;
+import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.service.abs.SSHDistributionService;
+import com.spark.http.service.service.abs.SSHTransferService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes one local file to many clients. The file is mapped once and every host upload reads
+ * the same mapped windows; at most {@code parallelism} hosts receive at the same time.
+ * <p>
+ * In relay mode only the first {@code parallelism} hosts are uploaded to directly. Each host
+ * that has a verified copy then forwards it with scp to up to {@code fanout} further hosts, so
+ * the upstream bandwidth of this service is spent once per root instead of once per host. A
+ * host whose relay parent failed, or whose relay copy failed, is uploaded to directly.
+ */
+@Service
+public class SSHDistributionServiceImpl implements SSHDistributionService {
+
+	private static final Logger log = LogManager.getLogger(SSHDistributionServiceImpl.class);
+
+	private final SSHClientService sshClientService;
+	private final SSHTransferService sshTransferService;
+	private final SSHTransferProperties transferProperties;
+	private final SSHDistributionProperties properties;
+	private final SSHThreads threads;
+
+	private ThreadPoolExecutor executor;
+
+	@Autowired
+	public SSHDistributionServiceImpl(SSHClientService sshClientService,
+									  SSHTransferService sshTransferService,
+									  SSHTransferProperties transferProperties,
+									  SSHDistributionProperties properties,
+									  SSHThreads threads) {
+		this.sshClientService = sshClientService;
+		this.sshTransferService = sshTransferService;
+		this.transferProperties = transferProperties;
+		this.properties = properties;
+		this.threads = threads;
+	}
+
+	@Override
+	public List<DistributionResult> distribute(Distribution distribution) throws IOException {
+		List<DistributionResult> results = new ArrayList<>();
+		distribute(distribution, result -> {
+			if (result.getStatus() != HostResultStatus.RUNNING) results.add(result);
+		});
+		return results;
+	}
+
+	@Override
+	public void distribute(Distribution distribution, ResultListener listener) throws IOException {
+
+		List<String> clientIds = new ArrayList<>(sshClientService.selectClients(distribution.getClientIds(), distribution.getTag()));
+
+		Path localFile = Paths.get(distribution.getLocalFilePath());
+		if (!Files.isRegularFile(localFile)) throw new CustomFileNotFoundException("File not found: " + distribution.getLocalFilePath());
+
+		int parallelism = positive(distribution.getParallelism(), properties.getDefaultParallelism());
+		int fanout = positive(distribution.getFanout(), properties.getDefaultFanout());
+		boolean relay = Boolean.TRUE.equals(distribution.getRelay());
+
+		// roots are uploaded directly, host i after them is relayed from host (i - roots) / fanout
+		Deque<HostTask> ready = new ArrayDeque<>();
+		Map<String, List<String>> relayTargets = new HashMap<>();
+		for (int i = 0; i < clientIds.size(); i++) {
+			if (!relay || i < parallelism) {
+				ready.add(new HostTask(clientIds.get(i), null));
+			} else {
+				String parent = clientIds.get((i - parallelism) / fanout);
+				relayTargets.computeIfAbsent(parent, id -> new ArrayList<>()).add(clientIds.get(i));
+			}
+		}
+
+		log.info("Distributing {} to {} clients, parallelism: {}, relay: {}",
+				distribution.getLocalFilePath(), clientIds.size(), parallelism, relay);
+
+		try (LocalFileSource source = new LocalFileSource(localFile, LocalReadMode.MAPPED, transferProperties.getMappedRegionSize())) {
+
+			String checksum = Boolean.FALSE.equals(distribution.getVerify()) ? null : source.sha256();
+			Map<String, AtomicLong> progress = new ConcurrentHashMap<>();
+
+			CompletionService<DistributionResult> completionService = new ExecutorCompletionService<>(executor);
+			List<Future<DistributionResult>> futures = new ArrayList<>();
+			int running = 0;
+
+			try {
+				while (!ready.isEmpty() || running > 0) {
+					while (running < parallelism && !ready.isEmpty()) {
+						HostTask task = ready.poll();
+						futures.add(completionService.submit(() -> runOnHost(task, distribution, source, checksum, progress)));
+						running++;
+					}
+
+					Future<DistributionResult> done = completionService.poll(properties.getProgressIntervalMillis(), TimeUnit.MILLISECONDS);
+					if (done == null) {
+						reportProgress(progress, source.length(), listener);
+						continue;
+					}
+
+					running--;
+					DistributionResult result = done.get();
+					listener.onResult(result);
+
+					String parent = result.getStatus() == HostResultStatus.SUCCEEDED ? result.getClientId() : null;
+					for (String target : relayTargets.getOrDefault(result.getClientId(), Collections.emptyList())) {
+						ready.add(new HostTask(target, parent));
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for distribution results", e);
+			} catch (ExecutionException e) {
+				// runOnHost reports host failures in its result, anything thrown here is a fault of the service
+				if (e.getCause() instanceof Error) throw (Error) e.getCause();
+				throw new IOException("Distribution task failed: " + e.getCause().getMessage(), e.getCause());
+			} finally {
+				futures.forEach(future -> future.cancel(true));
+			}
+		}
+	}
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+				threads.factory("ssh-distribution"));
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	private DistributionResult runOnHost(HostTask task, Distribution distribution, LocalFileSource source,
+										 String checksum, Map<String, AtomicLong> progress) {
+
+		String clientId = task.clientId;
+		String remotePath = distribution.getRemoteFilePath();
+
+		DistributionResult result = new DistributionResult();
+		result.setClientId(clientId);
+		result.setVia(task.via);
+		result.setTotalBytes(source.length());
+
+		long started = System.nanoTime();
+		try {
+			if (task.via != null && !relay(task.via, clientId, remotePath)) result.setVia(null);
+
+			if (result.getVia() == null) {
+				AtomicLong counter = new AtomicLong();
+				progress.put(clientId, counter);
+
+				TransferOptions options = new TransferOptions();
+				options.setProtocol(TransferProtocol.SFTP);
+				options.setParallelStreams(1);
+
+				TransferResult transferResult = sshTransferService.upload(clientId, source, remotePath, options, counter::addAndGet);
+				result.setBytesTransferred(transferResult.getTransferredBytes());
+			} else {
+				result.setBytesTransferred(source.length());
+			}
+
+			if (checksum != null) {
+				String remoteChecksum = remoteChecksum(clientId, remotePath);
+				result.setChecksum(remoteChecksum);
+				result.setChecksumMatch(checksum.equals(remoteChecksum));
+				if (!result.getChecksumMatch()) throw new IOException("checksum mismatch, expected " + checksum);
+			}
+
+			result.setStatus(HostResultStatus.SUCCEEDED);
+		} catch (Exception e) {
+			result.setStatus(HostResultStatus.FAILED);
+			result.setError(e.getMessage());
+			log.warn("Distribution to client with ID: {} failed: {}", clientId, e.getMessage());
+		} finally {
+			progress.remove(clientId);
+		}
+
+		long durationNanos = System.nanoTime() - started;
+		result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+		if (result.getBytesTransferred() != null) {
+			result.setBytesPerSecond(result.getBytesTransferred() * TimeUnit.SECONDS.toNanos(1) / Math.max(durationNanos, 1));
+		}
+		return result;
+	}
+
+	/**
+	 * Runs scp on the parent; the parent must be able to log in to the target non-interactively.
+	 * Returns {@code false} when the copy failed and the target has to be uploaded to directly.
+	 */
+	private boolean relay(String parentId, String clientId, String remoteFilePath) throws Exception {
+
+		SSHClientInfo target = sshClientService.getClientSession(clientId);
+		String path = RemotePaths.resolve(remoteFilePath);
+
+		CMD scp = new CMD();
+		scp.setPty(false);
+		scp.setCmd("scp " + properties.getRelayScpOptions() + " -P " + target.getPort() + " " + RemotePaths.quote(path) + " "
+				+ RemotePaths.quote(target.getUser() + "@" + target.getHost() + ":" + path));
+
+		SSHCommandResult commandResult = sshClientService.execute(parentId, scp);
+		if (commandResult.getExitStatus() == null || commandResult.getExitStatus() != 0) {
+			log.warn("Relay from client with ID: {} to {} failed, uploading directly: {}",
+					parentId, clientId, commandResult.getStderr().trim());
+			return false;
+		}
+
+		return true;
+	}
+
+	private String remoteChecksum(String clientId, String remoteFilePath) throws Exception {
+
+		CMD sha256sum = new CMD();
+		sha256sum.setPty(false);
+		sha256sum.setCmd("sha256sum " + RemotePaths.quote(RemotePaths.resolve(remoteFilePath)));
+
+		SSHCommandResult commandResult = sshClientService.execute(clientId, sha256sum);
+		if (commandResult.getExitStatus() == null || commandResult.getExitStatus() != 0) {
+			throw new IOException("sha256sum failed: " + commandResult.getStderr().trim());
+		}
+
+		return commandResult.getOutput().trim().split("\\s+")[0];
+	}
+
+	private static void reportProgress(Map<String, AtomicLong> progress, long totalBytes, ResultListener listener) throws IOException {
+		for (Map.Entry<String, AtomicLong> entry : progress.entrySet()) {
+			DistributionResult snapshot = new DistributionResult();
+			snapshot.setClientId(entry.getKey());
+			snapshot.setStatus(HostResultStatus.RUNNING);
+			snapshot.setBytesTransferred(entry.getValue().get());
+			snapshot.setTotalBytes(totalBytes);
+			listener.onResult(snapshot);
+		}
+	}
+
+	private static int positive(Integer value, int defaultValue) {
+		return value != null && value > 0 ? value : defaultValue;
+	}
+
+	private static class HostTask {
+
+		private final String clientId;
+		private final String via;
+
+		HostTask(String clientId, String via) {
+			this.clientId = clientId;
+			this.via = via;
+		}
+
+	}
+
+}
@@ -0,0 +1,285 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHHealthCheckProperties;
+import com.spark.http.service.model.entity.ConnectionStatus;
+import com.spark.http.service.model.entity.ProbeLevel;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.entity.VersionedClientInfo;
+import com.spark.http.service.model.exceptions.ClientIdNotFoundException;
+import com.spark.http.service.service.abs.SSHClientRegistry;
+import com.spark.http.service.service.abs.SSHHealthCheckService;
+import net.schmizz.sshj.SSHClient;
+import net.schmizz.sshj.connection.channel.direct.Session;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Probes clients on a dedicated bounded pool and caches the last result per clientId, so
+ * status requests are answered from memory. A result is only kept while it still matches the
+ * registry version it was probed against; re-registering a client invalidates its status.
+ * <p>
+ * Probes are layered ({@link ProbeLevel}): regular rounds stop at the cheap level, and only
+ * every {@code deepIntervalSeconds} a round goes as far as authentication or a command.
+ */
+@Service
+public class SSHHealthCheckServiceImpl implements SSHHealthCheckService {
+
+	private static final Logger log = LogManager.getLogger(SSHHealthCheckServiceImpl.class);
+
+	private static final int MAX_BANNER_BYTES = 8192;
+
+	private final SSHClientRegistry clientRegistry;
+	private final SSHConnector connector;
+	private final SSHHealthCheckProperties properties;
+	private final SSHThreads threads;
+
+	private final Map<String, ConnectionStatus> statuses = new ConcurrentHashMap<>();
+	private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+	private ThreadPoolExecutor executor;
+	private ScheduledExecutorService scheduler;
+	// only touched by the scheduler thread
+	private Long lastDeepRound;
+
+	@Autowired
+	public SSHHealthCheckServiceImpl(SSHClientRegistry clientRegistry,
+									 SSHConnector connector,
+									 SSHHealthCheckProperties properties,
+									 SSHThreads threads) {
+		this.clientRegistry = clientRegistry;
+		this.connector = connector;
+		this.properties = properties;
+		this.threads = threads;
+	}
+
+	@Override
+	public ConnectionStatus getStatus(String clientId) {
+
+		VersionedClientInfo entry = clientRegistry.get(clientId);
+		if (entry == null) throw new ClientIdNotFoundException(clientId);
+
+		return cached(clientId, entry);
+	}
+
+	@Override
+	public List<ConnectionStatus> getStatuses() {
+		return clientRegistry.entries()
+				.entrySet()
+				.stream()
+				.map(entry -> cached(entry.getKey(), entry.getValue()))
+				.sorted(Comparator.comparing(ConnectionStatus::getClientId))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public ConnectionStatus check(String clientId, ProbeLevel level) {
+
+		VersionedClientInfo entry = clientRegistry.get(clientId);
+		if (entry == null) throw new ClientIdNotFoundException(clientId);
+
+		return probe(clientId, entry, levelOrDeep(level));
+	}
+
+	@Override
+	public void refresh(String clientId, ProbeLevel level) {
+
+		ProbeLevel probeLevel = levelOrDeep(level);
+		if (!inFlight.add(clientId)) return;
+
+		try {
+			executor.execute(() -> {
+				try {
+					VersionedClientInfo entry = clientRegistry.get(clientId);
+					if (entry != null) probe(clientId, entry, probeLevel);
+				} finally {
+					inFlight.remove(clientId);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			inFlight.remove(clientId);
+			log.debug("Health check queue is full, skipping clientId: {}", clientId);
+		}
+	}
+
+	@Override
+	public void refreshAll(ProbeLevel level) {
+
+		Set<String> clientIds = clientRegistry.entries().keySet();
+		statuses.keySet().retainAll(clientIds);
+
+		clientIds.forEach(clientId -> refresh(clientId, level));
+	}
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+				threads.factory("ssh-health"));
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ssh-health-scheduler"));
+		if (properties.isEnabled()) {
+			scheduler.scheduleWithFixedDelay(this::scheduledRound, 0, properties.getIntervalSeconds(), TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		scheduler.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	private void scheduledRound() {
+
+		long now = System.nanoTime();
+		boolean deep = lastDeepRound == null
+				|| now - lastDeepRound >= TimeUnit.SECONDS.toNanos(properties.getDeepIntervalSeconds());
+		if (deep) lastDeepRound = now;
+
+		refreshAll(deep ? properties.getDeepLevel() : properties.getLevel());
+	}
+
+	private ProbeLevel levelOrDeep(ProbeLevel level) {
+		return level != null ? level : properties.getDeepLevel();
+	}
+
+	private ConnectionStatus cached(String clientId, VersionedClientInfo entry) {
+
+		ConnectionStatus status = statuses.get(clientId);
+		if (status != null && status.getVersion() == entry.getVersion()) return status;
+
+		ConnectionStatus unknown = new ConnectionStatus();
+		unknown.setClientId(clientId);
+		unknown.setVersion(entry.getVersion());
+		return unknown;
+	}
+
+	private ConnectionStatus probe(String clientId, VersionedClientInfo entry, ProbeLevel level) {
+
+		ConnectionStatus status = new ConnectionStatus();
+		status.setClientId(clientId);
+		status.setVersion(entry.getVersion());
+		status.setLevel(level);
+		status.setLatencies(new EnumMap<>(ProbeLevel.class));
+
+		long started = System.nanoTime();
+		try {
+			probeSocket(entry.getSshClientInfo(), level, status);
+			if (level.compareTo(ProbeLevel.AUTH) >= 0) probeSession(entry.getSshClientInfo(), level, status);
+			status.setConnected(true);
+		} catch (Exception e) {
+			status.setConnected(false);
+			status.setFailedLevel(nextLevel(status));
+			status.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+			log.debug("Health check failed at {} for clientId: {}", status.getFailedLevel(), clientId, e);
+		}
+		status.setLatencyMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		status.setCheckedAt(Instant.now());
+
+		// keep whichever result belongs to the newest settings; a client removed meanwhile is dropped
+		statuses.merge(clientId, status, (previous, latest) ->
+				previous.getVersion() > latest.getVersion() ? previous : latest);
+		if (clientRegistry.get(clientId) == null) statuses.remove(clientId);
+
+		return status;
+	}
+
+	/** TCP and BANNER levels run on a plain socket, so a cheap probe never starts a key exchange. */
+	private void probeSocket(SSHClientInfo sshClientInfo, ProbeLevel level, ConnectionStatus status) throws IOException {
+
+		int timeout = connectTimeoutMillis(sshClientInfo);
+
+		try (Socket socket = new Socket()) {
+			long started = System.nanoTime();
+			socket.connect(new InetSocketAddress(sshClientInfo.getHost(), sshClientInfo.getPort()), timeout);
+			passed(status, ProbeLevel.TCP, started);
+
+			if (level == ProbeLevel.TCP) return;
+
+			started = System.nanoTime();
+			socket.setSoTimeout(timeout);
+			readBanner(socket.getInputStream());
+			passed(status, ProbeLevel.BANNER, started);
+		}
+	}
+
+	private void probeSession(SSHClientInfo sshClientInfo, ProbeLevel level, ConnectionStatus status) throws IOException {
+
+		int connectTimeoutMillis = connectTimeoutMillis(sshClientInfo);
+		int authTimeoutMillis = sshClientInfo.getAuthTimeoutMillis() != null ? sshClientInfo.getAuthTimeoutMillis() : connectTimeoutMillis;
+
+		long started = System.nanoTime();
+		try (SSHClient ssh = connector.connect(status.getClientId(), sshClientInfo, connectTimeoutMillis, authTimeoutMillis, 0)) {
+			passed(status, ProbeLevel.AUTH, started);
+
+			if (level == ProbeLevel.AUTH) return;
+
+			started = System.nanoTime();
+			try (Session session = ssh.startSession()) {
+				Session.Command cmd = session.exec(properties.getCommand());
+				cmd.join(properties.getCommandTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+				Integer exitStatus = cmd.getExitStatus();
+				if (exitStatus == null) throw new IOException("command did not exit within " + properties.getCommandTimeoutMillis() + " ms");
+				if (exitStatus != 0) throw new IOException("command exited with status " + exitStatus);
+			}
+			passed(status, ProbeLevel.COMMAND, started);
+		}
+	}
+
+	/** The client's own connect timeout, so a slow link that execute still reaches is not reported DOWN. */
+	private int connectTimeoutMillis(SSHClientInfo sshClientInfo) {
+		return sshClientInfo.getConnectTimeoutMillis() != null
+				? sshClientInfo.getConnectTimeoutMillis() : properties.getConnectTimeoutMillis();
+	}
+
+	/** Servers may send other lines before the identification string (RFC 4253, 4.2). */
+	private static void readBanner(InputStream in) throws IOException {
+
+		StringBuilder line = new StringBuilder();
+		for (int read = 0; read < MAX_BANNER_BYTES; read++) {
+			int b = in.read();
+			if (b == -1) break;
+			if (b != '\n') {
+				line.append((char) b);
+				continue;
+			}
+			if (line.toString().startsWith("SSH-")) return;
+			line.setLength(0);
+		}
+
+		throw new IOException("no ssh identification string received");
+	}
+
+	private static void passed(ConnectionStatus status, ProbeLevel level, long started) {
+		status.getLatencies().put(level, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+	}
+
+	private static ProbeLevel nextLevel(ConnectionStatus status) {
+		ProbeLevel[] levels = ProbeLevel.values();
+		return levels[Math.min(status.getLatencies().size(), levels.length - 1)];
+	}
+
+}
@@ -0,0 +1,368 @@
+package com.spark.http.service.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.http.service.config.SSHHostKeyProperties;
+import com.spark.http.service.config.SSHStoreProperties;
+import com.spark.http.service.model.entity.HostKey;
+import com.spark.http.service.model.entity.HostKeyMode;
+import com.spark.http.service.model.entity.HostKeySource;
+import com.spark.http.service.model.entity.KnownHost;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.entity.VersionedClientInfo;
+import com.spark.http.service.model.exceptions.ClientIdNotFoundException;
+import com.spark.http.service.model.exceptions.HostKeyNotFoundException;
+import com.spark.http.service.service.abs.SSHClientRegistry;
+import com.spark.http.service.service.abs.SSHHostKeyService;
+import net.schmizz.sshj.DefaultConfig;
+import net.schmizz.sshj.SSHClient;
+import net.schmizz.sshj.common.Buffer;
+import net.schmizz.sshj.common.KeyType;
+import net.schmizz.sshj.transport.verification.HostKeyVerifier;
+import net.schmizz.sshj.transport.verification.OpenSSHKnownHosts;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Trusted host keys per host and port, kept in memory and written through to an
+ * {@link AppendOnlyStore}. A connection looks its address up in the map and compares the
+ * presented key with the pinned ones; known_hosts is only consulted, from {@link SSHKeyCache},
+ * for an address that has no pinned key yet. A key that known_hosts contradicts is rejected in
+ * TOFU and STRICT mode, so TOFU only pins hosts that known_hosts does not list at all.
+ * <p>
+ * Changes go through the map operations for the address, so two first connections racing to pin
+ * different keys end up with one of them pinned and the other one rejected. As in
+ * {@link SSHClientRegistryImpl}, the store is written after the map operation, so a slow disk
+ * does not stall handshakes of other hosts: every change carries a version, a write is skipped
+ * when a newer change of the address is already in the log, and a change that could not be
+ * written is rolled back unless a newer one replaced it in the meantime.
+ */
+@Service
+public class SSHHostKeyServiceImpl implements SSHHostKeyService {
+
+	private static final Logger log = LogManager.getLogger(SSHHostKeyServiceImpl.class);
+
+	private final ConcurrentHashMap<String, KnownHost> knownHosts = new ConcurrentHashMap<>();
+	private final AtomicLong versions = new AtomicLong();
+
+	/** Version of the last change written per address, guarded by {@link #writeLock}. */
+	private final Map<String, Long> writtenVersions = new HashMap<>();
+	private final Object writeLock = new Object();
+
+	private final SSHHostKeyProperties properties;
+	private final SSHClientRegistry clientRegistry;
+	private final SSHKeyCache keyCache;
+	private final AppendOnlyStore<KnownHost> store;
+
+	@Autowired
+	public SSHHostKeyServiceImpl(SSHHostKeyProperties properties,
+								 SSHStoreProperties storeProperties,
+								 SSHClientRegistry clientRegistry,
+								 SSHKeyCache keyCache,
+								 ObjectMapper objectMapper) {
+		this.properties = properties;
+		this.clientRegistry = clientRegistry;
+		this.keyCache = keyCache;
+		this.store = new AppendOnlyStore<>(Paths.get(storeProperties.getDirectory()), "host-keys", KnownHost.class,
+				objectMapper, storeProperties.isSyncWrites(), storeProperties.getCompactionThreshold());
+	}
+
+	@Override
+	public HostKeyVerifier verifier(SSHClientInfo sshClientInfo) {
+		HostKeyMode mode = sshClientInfo.getHostKeyMode() != null ? sshClientInfo.getHostKeyMode() : properties.getDefaultMode();
+		return (hostname, port, key) -> verify(sshClientInfo, mode, key);
+	}
+
+	@Override
+	public List<KnownHost> getKnownHosts() {
+		return new ArrayList<>(knownHosts.values());
+	}
+
+	@Override
+	public KnownHost getKnownHost(String clientId) {
+		SSHClientInfo sshClientInfo = client(clientId);
+
+		KnownHost knownHost = knownHosts.get(hostId(sshClientInfo));
+		return knownHost != null ? knownHost : new KnownHost(sshClientInfo.getHost(), sshClientInfo.getPort(), Collections.emptyList());
+	}
+
+	@Override
+	public KnownHost pin(String clientId, String publicKey, boolean replace) throws IOException {
+
+		SSHClientInfo sshClientInfo = client(clientId);
+		HostKey pinned = hostKey(publicKey != null ? parsePublicKey(publicKey) : fetchHostKey(sshClientInfo), HostKeySource.PINNED);
+
+		String hostId = hostId(sshClientInfo);
+		KnownHost[] previous = new KnownHost[1];
+		long[] version = new long[1];
+		KnownHost knownHost = knownHosts.compute(hostId, (id, current) -> {
+			previous[0] = current;
+			version[0] = versions.incrementAndGet();
+
+			List<HostKey> keys = new ArrayList<>();
+			if (current != null && !replace) {
+				current.getKeys().stream()
+						.filter(key -> !key.getPublicKey().equals(pinned.getPublicKey()))
+						.forEach(keys::add);
+			}
+			keys.add(pinned);
+			return new KnownHost(sshClientInfo.getHost(), sshClientInfo.getPort(), keys);
+		});
+		persist(hostId, version[0], knownHost, previous[0]);
+
+		log.info("Pinned host key of {}: {} {}", hostId, pinned.getKeyType(), pinned.getFingerprint());
+		return knownHost;
+	}
+
+	@Override
+	public KnownHost revoke(String clientId, String fingerprint) {
+
+		SSHClientInfo sshClientInfo = client(clientId);
+		String hostId = hostId(sshClientInfo);
+
+		KnownHost[] previous = new KnownHost[1];
+		long[] version = new long[1];
+		KnownHost knownHost = knownHosts.compute(hostId, (id, current) -> {
+			if (current == null) {
+				if (fingerprint != null) throw new HostKeyNotFoundException(id, fingerprint);
+				return null;
+			}
+
+			List<HostKey> keys = fingerprint == null ? Collections.emptyList() : current.getKeys().stream()
+					.filter(key -> !key.getFingerprint().equals(fingerprint))
+					.collect(Collectors.toList());
+			if (keys.size() == current.getKeys().size()) throw new HostKeyNotFoundException(id, fingerprint);
+
+			previous[0] = current;
+			version[0] = versions.incrementAndGet();
+			return keys.isEmpty() ? null : new KnownHost(current.getHost(), current.getPort(), keys);
+		});
+		if (previous[0] != null) persist(hostId, version[0], knownHost, previous[0]);
+
+		log.info("Revoked {} of {}", fingerprint != null ? "host key " + fingerprint : "all host keys", hostId);
+		return knownHost != null ? knownHost : new KnownHost(sshClientInfo.getHost(), sshClientInfo.getPort(), Collections.emptyList());
+	}
+
+	@PostConstruct
+	public void init() throws IOException {
+		knownHosts.putAll(store.load());
+	}
+
+	@PreDestroy
+	public void destroy() throws IOException {
+		store.close();
+	}
+
+	private boolean verify(SSHClientInfo sshClientInfo, HostKeyMode mode, PublicKey key) {
+
+		if (mode == HostKeyMode.ACCEPT_ALL) return true;
+
+		String hostId = hostId(sshClientInfo);
+		KnownHost knownHost = knownHosts.get(hostId);
+		if (knownHost != null) return matches(hostId, knownHost, key);
+
+		KnownHostsMatch knownHostsMatch = inKnownHosts(sshClientInfo, key);
+		if (knownHostsMatch == KnownHostsMatch.MISMATCH) {
+			HostKey presented = hostKey(key, null);
+			log.warn("Rejected host key of {}: known_hosts lists a different key for the host - {} {}",
+					hostId, presented.getKeyType(), presented.getFingerprint());
+			return false;
+		}
+
+		HostKeySource source;
+		if (knownHostsMatch == KnownHostsMatch.MATCH && properties.isTrustKnownHosts()) {
+			source = HostKeySource.KNOWN_HOSTS;
+		} else if (mode == HostKeyMode.TOFU) {
+			source = HostKeySource.FIRST_USE;
+		} else {
+			HostKey presented = hostKey(key, null);
+			log.warn("Rejected host key of {}: no key is pinned for the host - {} {}",
+					hostId, presented.getKeyType(), presented.getFingerprint());
+			return false;
+		}
+
+		HostKey presented = hostKey(key, source);
+		long[] version = new long[1];
+		knownHost = knownHosts.computeIfAbsent(hostId, id -> {
+			version[0] = versions.incrementAndGet();
+			return new KnownHost(sshClientInfo.getHost(), sshClientInfo.getPort(), Collections.singletonList(presented));
+		});
+
+		if (version[0] == 0) return matches(hostId, knownHost, key);
+
+		persist(hostId, version[0], knownHost, null);
+
+		log.info("Pinned host key of {} ({}): {} {}", hostId, source, presented.getKeyType(), presented.getFingerprint());
+		return true;
+	}
+
+	private boolean matches(String hostId, KnownHost knownHost, PublicKey key) {
+
+		String publicKey = publicKey(key);
+		for (HostKey hostKey : knownHost.getKeys()) {
+			if (hostKey.getPublicKey().equals(publicKey)) return true;
+		}
+
+		HostKey presented = hostKey(key, null);
+		log.warn("Rejected host key of {}: {} {} is not one of the {} pinned keys",
+				hostId, presented.getKeyType(), presented.getFingerprint(), knownHost.getKeys().size());
+		return false;
+	}
+
+	/**
+	 * Looks the address up in known_hosts the way OpenSSH does: any line for the host decides,
+	 * so a host that is listed only with other keys is a mismatch, not an unknown host.
+	 */
+	private KnownHostsMatch inKnownHosts(SSHClientInfo sshClientInfo, PublicKey key) {
+
+		int port = sshClientInfo.getPort();
+		String host = port != 22 ? "[" + sshClientInfo.getHost() + "]:" + port : sshClientInfo.getHost();
+
+		KnownHostsMatch match = KnownHostsMatch.ABSENT;
+		try {
+			for (OpenSSHKnownHosts knownHostsFile : keyCache.knownHosts()) {
+				for (OpenSSHKnownHosts.KnownHostEntry entry : knownHostsFile.entries()) {
+					if (!entry.appliesTo(host)) continue;
+					if (entry.appliesTo(KeyType.fromKey(key), host) && entry.verify(key)) return KnownHostsMatch.MATCH;
+					match = KnownHostsMatch.MISMATCH;
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Could not read known_hosts: {}", e.getMessage());
+		}
+		return match;
+	}
+
+	/** Runs the key exchange only, to see which key the server presents. */
+	private PublicKey fetchHostKey(SSHClientInfo sshClientInfo) throws IOException {
+
+		AtomicReference<PublicKey> presented = new AtomicReference<>();
+
+		try (SSHClient ssh = new SSHClient(new DefaultConfig())) {
+			ssh.setConnectTimeout(properties.getFetchTimeoutMillis());
+			ssh.getTransport().setTimeoutMs(properties.getFetchTimeoutMillis());
+			ssh.addHostKeyVerifier((hostname, port, key) -> {
+				presented.set(key);
+				return true;
+			});
+			ssh.connect(sshClientInfo.getHost(), sshClientInfo.getPort());
+		}
+
+		return presented.get();
+	}
+
+	private SSHClientInfo client(String clientId) {
+		VersionedClientInfo entry = clientRegistry.get(clientId);
+		if (entry == null) throw new ClientIdNotFoundException(clientId);
+
+		return entry.getSshClientInfo();
+	}
+
+	/**
+	 * Writes the keys of the address, or their removal when {@code knownHost} is null; when that
+	 * fails, the map goes back to {@code previous} unless the entry was replaced since.
+	 */
+	private void persist(String hostId, long version, KnownHost knownHost, KnownHost previous) {
+		try {
+			write(hostId, version, knownHost);
+		} catch (UncheckedIOException e) {
+			if (knownHost == null) {
+				knownHosts.putIfAbsent(hostId, previous);
+			} else if (previous != null) {
+				knownHosts.replace(hostId, knownHost, previous);
+			} else {
+				knownHosts.remove(hostId, knownHost);
+			}
+			throw e;
+		}
+	}
+
+	/** Appends the change unless a newer change of the address is already in the log. */
+	private void write(String hostId, long version, KnownHost knownHost) {
+		synchronized (writeLock) {
+			Long written = writtenVersions.get(hostId);
+			if (written != null && written > version) return;
+
+			try {
+				if (knownHost == null) {
+					store.remove(hostId);
+				} else {
+					store.put(hostId, knownHost);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not persist host keys of " + hostId + ": " + e.getMessage(), e);
+			}
+			writtenVersions.put(hostId, version);
+		}
+	}
+
+	private static String hostId(SSHClientInfo sshClientInfo) {
+		return sshClientInfo.getHost().toLowerCase(Locale.ROOT) + ":" + sshClientInfo.getPort();
+	}
+
+	private static HostKey hostKey(PublicKey key, HostKeySource source) {
+
+		byte[] blob = new Buffer.PlainBuffer().putPublicKey(key).getCompactData();
+
+		HostKey hostKey = new HostKey();
+		hostKey.setKeyType(KeyType.fromKey(key).toString());
+		hostKey.setFingerprint("SHA256:" + Base64.getEncoder().withoutPadding().encodeToString(sha256(blob)));
+		hostKey.setPublicKey(hostKey.getKeyType() + " " + Base64.getEncoder().encodeToString(blob));
+		hostKey.setSource(source);
+		hostKey.setAddedAt(Instant.now());
+		return hostKey;
+	}
+
+	private static String publicKey(PublicKey key) {
+		return KeyType.fromKey(key) + " " + Base64.getEncoder().encodeToString(new Buffer.PlainBuffer().putPublicKey(key).getCompactData());
+	}
+
+	/** Parses a known_hosts or .pub line: {@code [type] base64 [comment]}. */
+	private static PublicKey parsePublicKey(String publicKey) {
+
+		String[] parts = publicKey.trim().split("\\s+");
+		String encoded = parts.length > 1 ? parts[1] : parts[0];
+
+		try {
+			return new Buffer.PlainBuffer(Base64.getDecoder().decode(encoded.getBytes(StandardCharsets.US_ASCII))).readPublicKey();
+		} catch (IOException | RuntimeException e) {
+			throw new IllegalArgumentException("not an OpenSSH public key: " + publicKey, e);
+		}
+	}
+
+	private static byte[] sha256(byte[] data) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(data);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private enum KnownHostsMatch {
+		MATCH, MISMATCH, ABSENT
+	}
+
+}
@@ -0,0 +1,226 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHExecutionProperties;
+import com.spark.http.service.config.SSHJobProperties;
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.CommandJob;
+import com.spark.http.service.model.entity.JobStatus;
+import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.model.exceptions.JobNotFoundException;
+import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.service.abs.SSHJobService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+public class SSHJobServiceImpl implements SSHJobService {
+
+	private static final Logger log = LogManager.getLogger(SSHJobServiceImpl.class);
+
+	private final SSHClientService sshClientService;
+	private final SSHExecutionProperties executionProperties;
+	private final SSHJobProperties jobProperties;
+	private final SSHThreads threads;
+
+	private final Map<String, JobHandle> jobs = new ConcurrentHashMap<>();
+	private ThreadPoolExecutor executor;
+	private ScheduledExecutorService cleaner;
+
+	@Autowired
+	public SSHJobServiceImpl(SSHClientService sshClientService,
+							 SSHExecutionProperties executionProperties,
+							 SSHJobProperties jobProperties,
+							 SSHThreads threads) {
+		this.sshClientService = sshClientService;
+		this.executionProperties = executionProperties;
+		this.jobProperties = jobProperties;
+		this.threads = threads;
+	}
+
+	@Override
+	public CommandJob submit(String clientId, CMD CMD) {
+
+		sshClientService.getClientSession(clientId);
+
+		CommandJob job = new CommandJob(UUID.randomUUID().toString(), clientId, CMD);
+		JobHandle handle = new JobHandle(job,
+				OutputCollector.forCommand(CMD, executionProperties),
+				OutputCollector.forCommand(CMD, executionProperties));
+
+		jobs.put(job.getJobId(), handle);
+		try {
+			handle.future = executor.submit(() -> run(handle));
+		} catch (RuntimeException e) {
+			jobs.remove(job.getJobId());
+			throw e;
+		}
+
+		return job;
+	}
+
+	@Override
+	public CommandJob getJob(String jobId) {
+		return getHandle(jobId).job;
+	}
+
+	@Override
+	public List<CommandJob> getJobs() {
+		return jobs.values()
+				.stream()
+				.map(handle -> handle.job)
+				.sorted(Comparator.comparing(CommandJob::getSubmittedAt))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public SSHCommandResult getOutput(String jobId) {
+
+		JobHandle handle = getHandle(jobId);
+		if (handle.job.getResult() != null) return handle.job.getResult();
+
+		SSHCommandResult partial = new SSHCommandResult();
+		partial.setOutput(handle.stdout.toString(executionProperties.getOutputCharset()));
+		partial.setStderr(handle.stderr.toString(executionProperties.getOutputCharset()));
+		partial.setTruncated(handle.stdout.isTruncated() || handle.stderr.isTruncated());
+		partial.setStdoutBytes(handle.stdout.getTotalBytes());
+		partial.setStderrBytes(handle.stderr.getTotalBytes());
+		return partial;
+	}
+
+	@Override
+	public CommandJob cancel(String jobId) {
+
+		JobHandle handle = getHandle(jobId);
+
+		if (handle.finish(JobStatus.CANCELLED, null, null)) {
+			log.info("Cancelling job: {}", jobId);
+			handle.control.cancel();
+
+			// a job that has not reached the server yet is interrupted wherever it waits; a started
+			// command is stopped by the control, which also ends the remote process
+			Future<?> future = handle.future;
+			if (future != null && !handle.control.isRunning()) future.cancel(true);
+		}
+
+		return handle.job;
+	}
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(jobProperties.getPoolSize(), jobProperties.getPoolSize(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(jobProperties.getQueueCapacity()),
+				threads.factory("ssh-job"));
+
+		long interval = jobProperties.getCleanupIntervalSeconds();
+		cleaner = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ssh-job-cleaner"));
+		cleaner.scheduleWithFixedDelay(this::removeExpired, interval, interval, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		cleaner.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	private void run(JobHandle handle) {
+
+		CommandJob job = handle.job;
+		if (!handle.start()) return;
+
+		log.info("Running job {} on client with ID: {} - Command: {}", job.getJobId(), job.getClientId(), job.getCmd().getCmd());
+
+		try {
+			SSHCommandResult result = sshClientService.execute(job.getClientId(), job.getCmd(), handle.stdout, handle.stderr, handle.control);
+			if (Boolean.TRUE.equals(result.getTimedOut())) {
+				handle.finish(JobStatus.FAILED, result, "timed out");
+			} else {
+				handle.finish(JobStatus.SUCCEEDED, result, null);
+			}
+		} catch (Exception e) {
+			if (handle.finish(JobStatus.FAILED, null, e.getMessage())) {
+				log.warn("Job {} failed: {}", job.getJobId(), e.getMessage(), e);
+			}
+		}
+
+		log.info("Job {} finished with status {}", job.getJobId(), job.getStatus());
+	}
+
+	private void removeExpired() {
+
+		Instant deadline = Instant.now().minusSeconds(jobProperties.getRetentionSeconds());
+
+		List<CommandJob> finished = jobs.values()
+				.stream()
+				.map(handle -> handle.job)
+				.filter(job -> job.getStatus().isFinished())
+				.sorted(Comparator.comparing(CommandJob::getFinishedAt).reversed())
+				.collect(Collectors.toList());
+
+		for (int i = 0; i < finished.size(); i++) {
+			CommandJob job = finished.get(i);
+			if (i >= jobProperties.getMaxRetained() || job.getFinishedAt().isBefore(deadline)) {
+				jobs.remove(job.getJobId());
+			}
+		}
+	}
+
+	private JobHandle getHandle(String jobId) {
+
+		JobHandle handle = jobs.get(jobId);
+		if (handle == null) throw new JobNotFoundException(jobId);
+
+		return handle;
+	}
+
+	private static class JobHandle {
+
+		private final CommandJob job;
+		private final OutputCollector stdout;
+		private final OutputCollector stderr;
+		private final CommandControl control = new CommandControl();
+		private volatile Future<?> future;
+
+		JobHandle(CommandJob job, OutputCollector stdout, OutputCollector stderr) {
+			this.job = job;
+			this.stdout = stdout;
+			this.stderr = stderr;
+		}
+
+		synchronized boolean start() {
+			if (job.getStatus() != JobStatus.QUEUED) return false;
+			job.setStatus(JobStatus.RUNNING);
+			job.setStartedAt(Instant.now());
+			return true;
+		}
+
+		synchronized boolean finish(JobStatus status, SSHCommandResult result, String error) {
+			if (job.getStatus().isFinished()) return false;
+			job.setResult(result);
+			job.setError(error);
+			job.setFinishedAt(Instant.now());
+			job.setStatus(status);
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,185 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHKeyProperties;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import net.schmizz.sshj.DefaultConfig;
+import net.schmizz.sshj.common.Factory;
+import net.schmizz.sshj.common.SSHException;
+import net.schmizz.sshj.transport.verification.OpenSSHKnownHosts;
+import net.schmizz.sshj.userauth.keyprovider.FileKeyProvider;
+import net.schmizz.sshj.userauth.keyprovider.KeyFormat;
+import net.schmizz.sshj.userauth.keyprovider.KeyProvider;
+import net.schmizz.sshj.userauth.keyprovider.KeyProviderUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed private keys and known_hosts files, shared by all connections. A key file is parsed
+ * and decrypted once and the provider is reused until the file's modification time or size
+ * changes; files are checked at most every {@code recheckIntervalMillis}, so a connection
+ * normally costs no file access at all. Each file is loaded by one thread while others wait
+ * for it.
+ */
+@Component
+public class SSHKeyCache {
+
+	private static final Logger log = LogManager.getLogger(SSHKeyCache.class);
+
+	/** Keys tried by sshj's {@code authPublickey(user)} when a client has neither password nor key file. */
+	private static final List<String> DEFAULT_KEYS = Arrays.asList("id_rsa", "id_dsa", "id_ed25519", "id_ecdsa");
+	private static final List<String> KNOWN_HOSTS = Arrays.asList("known_hosts", "known_hosts2");
+
+	private final SSHKeyProperties properties;
+	private final List<Factory.Named<FileKeyProvider>> keyProviderFactories = new DefaultConfig().getFileKeyProviderFactories();
+	private final Path sshDirectory = Paths.get(System.getProperty("user.home"), ".ssh");
+
+	private final Map<Path, CachedFile<KeyProvider>> keys = new ConcurrentHashMap<>();
+	private final Map<Path, CachedFile<OpenSSHKnownHosts>> knownHosts = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SSHKeyCache(SSHKeyProperties properties) {
+		this.properties = properties;
+	}
+
+	public KeyProvider keyProvider(String keyFilePath) throws IOException {
+		KeyProvider keyProvider = get(keys, Paths.get(keyFilePath).toAbsolutePath(), this::loadKey);
+		if (keyProvider == null) throw new FileNotFoundException("Key file not found: " + keyFilePath);
+
+		return keyProvider;
+	}
+
+	/** Providers of the default keys in {@code ~/.ssh} that exist. */
+	public List<KeyProvider> defaultKeyProviders() throws IOException {
+		List<KeyProvider> providers = new ArrayList<>();
+		for (String name : DEFAULT_KEYS) {
+			KeyProvider keyProvider = get(keys, sshDirectory.resolve(name), this::loadKey);
+			if (keyProvider != null) providers.add(keyProvider);
+		}
+		return providers;
+	}
+
+	/** {@code ~/.ssh/known_hosts} and {@code known_hosts2}, the files {@code SSHClient.loadKnownHosts()} would read. */
+	public List<OpenSSHKnownHosts> knownHosts() throws IOException {
+		List<OpenSSHKnownHosts> files = new ArrayList<>();
+		for (String name : KNOWN_HOSTS) {
+			OpenSSHKnownHosts file = get(knownHosts, sshDirectory.resolve(name), OpenSSHKnownHosts::new);
+			if (file != null) files.add(file);
+		}
+		return files;
+	}
+
+	/** Loads the keys the client authenticates with; failures are only logged, the connection reports them. */
+	public void prewarm(String clientId, SSHClientInfo sshClientInfo) {
+
+		if (!properties.isPrewarm() || sshClientInfo.getPassword() != null) return;
+
+		try {
+			if (sshClientInfo.getKeyFilePath() != null) {
+				keyProvider(sshClientInfo.getKeyFilePath());
+			} else {
+				defaultKeyProviders();
+			}
+		} catch (IOException | RuntimeException e) {
+			log.warn("Could not load the key of client with ID: {}: {}", clientId, e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the cached value for the file, reloading it when it changed since it was loaded;
+	 * {@code null} when the file does not exist.
+	 */
+	private <T> T get(Map<Path, CachedFile<T>> cache, Path path, Loader<T> loader) throws IOException {
+
+		long now = System.currentTimeMillis();
+
+		CachedFile<T> cached = cache.get(path);
+		if (cached != null && now < cached.recheckAt) return cached.value;
+
+		try {
+			return cache.compute(path, (file, current) -> {
+				if (current != null && now < current.recheckAt) return current;
+
+				try {
+					BasicFileAttributes attributes = attributes(file);
+					if (current != null && current.matches(attributes)) {
+						current.recheckAt = now + properties.getRecheckIntervalMillis();
+						return current;
+					}
+
+					T value = attributes == null ? null : loader.load(file.toFile());
+					if (value != null) log.debug("Loaded {}", file);
+					return new CachedFile<>(value, attributes, now + properties.getRecheckIntervalMillis());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).value;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/** Parses and decrypts the key right away; the provider keeps the key pair for later calls. */
+	private KeyProvider loadKey(File file) throws IOException {
+
+		KeyFormat format = KeyProviderUtil.detectKeyFileFormat(file);
+		FileKeyProvider keyProvider = Factory.Named.Util.create(keyProviderFactories, format.toString());
+		if (keyProvider == null) throw new SSHException("No provider available for " + format + " key file " + file);
+
+		keyProvider.init(file);
+		keyProvider.getPublic();
+		keyProvider.getPrivate();
+		return keyProvider;
+	}
+
+	private static BasicFileAttributes attributes(Path file) throws IOException {
+		try {
+			return Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	private interface Loader<T> {
+		T load(File file) throws IOException;
+	}
+
+	private static class CachedFile<T> {
+
+		private final T value;
+		private final FileTime modified;
+		private final long size;
+		private volatile long recheckAt;
+
+		CachedFile(T value, BasicFileAttributes attributes, long recheckAt) {
+			this.value = value;
+			this.modified = attributes == null ? null : attributes.lastModifiedTime();
+			this.size = attributes == null ? -1 : attributes.size();
+			this.recheckAt = recheckAt;
+		}
+
+		boolean matches(BasicFileAttributes attributes) {
+			if (attributes == null) return modified == null;
+			return attributes.lastModifiedTime().equals(modified) && attributes.size() == size;
+		}
+
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.spark.http.service.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters of the ssh layer, exposed through the actuator. Every phase of a request
+ * is timed into {@code ssh.phase}, tagged with the phase, clientId, operation and the simple
+ * name of the exception that ended it ({@code none} on success), so a slow or failing host
+ * shows up as its own series. Next to the timers there are byte counters for uploads and
+ * command output, error counters per handled exception and gauges of operations in flight.
+ */
+@Component
+public class SSHMetrics {
+
+	public static final String TCP_CONNECT = "tcp_connect";
+	public static final String KEY_EXCHANGE = "key_exchange";
+	public static final String AUTH = "auth";
+	public static final String CHANNEL_OPEN = "channel_open";
+	public static final String EXEC = "exec";
+	public static final String OUTPUT_READ = "output_read";
+	public static final String TRANSFER = "transfer";
+
+	private static final String NONE = "none";
+
+	private final MeterRegistry registry;
+	private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SSHMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	/** Runs the work and records its duration as {@code phase}, also when it fails. */
+	public <T> T time(String phase, String clientId, String operation, Timed<T> work) throws IOException {
+
+		long started = System.nanoTime();
+		String exception = NONE;
+		try {
+			return work.run();
+		} catch (IOException | RuntimeException e) {
+			exception = exception(e);
+			throw e;
+		} finally {
+			record(phase, clientId, operation, System.nanoTime() - started, exception);
+		}
+	}
+
+	public void record(String phase, String clientId, String operation, long durationNanos, String exception) {
+		Timer.builder("ssh.phase")
+				.description("Duration of the phases of ssh requests")
+				.tags("phase", phase, "clientId", clientId, "operation", operation, "exception", exception)
+				.register(registry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/** Counts the bytes a command wrote to {@code stream}, stdout or stderr. */
+	public void outputBytes(String clientId, String stream, long bytes) {
+		Counter.builder("ssh.output.bytes")
+				.description("Command output read from clients")
+				.baseUnit("bytes")
+				.tags("clientId", clientId, "stream", stream)
+				.register(registry)
+				.increment(bytes);
+	}
+
+	public void uploadBytes(String clientId, String protocol, long bytes) {
+		Counter.builder("ssh.upload.bytes")
+				.description("File content written to clients")
+				.baseUnit("bytes")
+				.tags("clientId", clientId, "protocol", protocol)
+				.register(registry)
+				.increment(bytes);
+	}
+
+	/** Counts an exception answered by the web layer, tagged with the status it was mapped to. */
+	public void error(Exception ex, HttpStatus status) {
+		Counter.builder("ssh.errors")
+				.description("Handled request errors by exception type")
+				.tags("exception", ex.getClass().getSimpleName(), "status", String.valueOf(status.value()))
+				.register(registry)
+				.increment();
+	}
+
+	/** Runs the work while counting it in the {@code ssh.in.flight} gauge of its operation. */
+	public <T> T inFlight(String operation, Timed<T> work) throws IOException {
+
+		AtomicInteger running = inFlight.computeIfAbsent(operation, op ->
+				registry.gauge("ssh.in.flight", Tags.of("operation", op), new AtomicInteger()));
+
+		running.incrementAndGet();
+		try {
+			return work.run();
+		} finally {
+			running.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Sockets that time their own connect, so the TCP handshake is told apart from the key exchange.
+	 * sshj connects by host name through {@link SocketFactory#createSocket()}; the other variants are
+	 * not timed.
+	 */
+	public SocketFactory socketFactory(String clientId) {
+		return new SocketFactory() {
+
+			@Override
+			public Socket createSocket() {
+				return new TimedSocket(clientId);
+			}
+
+			@Override
+			public Socket createSocket(String host, int port) throws IOException {
+				return SocketFactory.getDefault().createSocket(host, port);
+			}
+
+			@Override
+			public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+				return SocketFactory.getDefault().createSocket(host, port, localHost, localPort);
+			}
+
+			@Override
+			public Socket createSocket(InetAddress host, int port) throws IOException {
+				return SocketFactory.getDefault().createSocket(host, port);
+			}
+
+			@Override
+			public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+				return SocketFactory.getDefault().createSocket(address, port, localAddress, localPort);
+			}
+		};
+	}
+
+	/** {@link System#nanoTime()} at which the socket finished its TCP handshake, 0 when it did not. */
+	public static long connectedAt(Socket socket) {
+		return socket instanceof TimedSocket ? ((TimedSocket) socket).connectedAt : 0;
+	}
+
+	public static String exception(Throwable e) {
+		return e == null ? NONE : e.getClass().getSimpleName();
+	}
+
+	@FunctionalInterface
+	public interface Timed<T> {
+		T run() throws IOException;
+	}
+
+	private class TimedSocket extends Socket {
+
+		private final String clientId;
+		private volatile long connectedAt;
+
+		TimedSocket(String clientId) {
+			this.clientId = clientId;
+		}
+
+		@Override
+		public void connect(SocketAddress endpoint, int timeout) throws IOException {
+			time(TCP_CONNECT, clientId, "connect", () -> {
+				super.connect(endpoint, timeout);
+				return null;
+			});
+			connectedAt = System.nanoTime();
+		}
+
+	}
+
+}
@@ -0,0 +1,211 @@
+package com.spark.http.service.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.spark.http.service.config.SSHResultCacheProperties;
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.OutputLimitMode;
+import com.spark.http.service.model.entity.ResultCacheStats;
+import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.service.abs.SSHResultCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of read-only commands that callers poll, such as {@code df -h}, kept for the TTL the
+ * command asks for. Entries are keyed by clientId, command line and the options that shape the
+ * output; the cache is bounded by the size of the kept output and evicts with Caffeine's
+ * W-TinyLFU policy.
+ * <p>
+ * An entry is a future completed by the first caller, which runs the command on its own thread,
+ * so callers that arrive while it runs wait for that run instead of opening channels of their
+ * own. A failed run is not kept, neither is a command that timed out or was killed by a signal.
+ * <p>
+ * Hits, misses and evictions are registered as {@code cache.*} meters tagged
+ * {@code cache=ssh-results}.
+ */
+@Service
+public class SSHResultCacheServiceImpl implements SSHResultCacheService {
+
+	private static final Logger log = LogManager.getLogger(SSHResultCacheServiceImpl.class);
+
+	/** Rough size of an entry without its output. */
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private final SSHResultCacheProperties properties;
+	private final AsyncCache<Key, Entry> cache;
+
+	@Autowired
+	public SSHResultCacheServiceImpl(SSHResultCacheProperties properties, MeterRegistry registry) {
+		this.properties = properties;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(properties.getMaxSizeBytes())
+				.weigher((Key key, Entry entry) -> entry.weight)
+				.expireAfter(new EntryExpiry())
+				.recordStats()
+				.buildAsync();
+
+		CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "ssh-results");
+	}
+
+	@Override
+	public SSHCommandResult get(String clientId, CMD CMD, Loader loader) throws Exception {
+
+		Integer ttlSeconds = CMD.getCacheTtlSeconds();
+		if (!properties.isEnabled() || ttlSeconds == null || ttlSeconds <= 0) return loader.load();
+
+		long ttlNanos = TimeUnit.SECONDS.toNanos(Math.min(ttlSeconds, properties.getMaxTtlSeconds()));
+
+		CompletableFuture<Entry> created = new CompletableFuture<>();
+		CompletableFuture<Entry> future = cache.get(new Key(clientId, CMD), (key, executor) -> created);
+		if (future != created) return await(future).result;
+
+		try {
+			SSHCommandResult result = loader.load();
+			// callers already waiting get the result either way, an expiry of 0 only keeps it out of the cache
+			created.complete(new Entry(result, cacheable(result) ? ttlNanos : 0));
+			return result;
+		} catch (Throwable e) {
+			created.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	@Override
+	public void invalidate(String clientId, String cmd) {
+
+		int removed = 0;
+		for (Key key : cache.asMap().keySet()) {
+			if (key.clientId.equals(clientId) && (cmd == null || cmd.equals(key.cmd)) && cache.asMap().remove(key) != null) {
+				removed++;
+			}
+		}
+		if (removed > 0) log.info("Dropped {} cached results of clientId: {}", removed, clientId);
+	}
+
+	@Override
+	public void invalidateAll() {
+		cache.synchronous().invalidateAll();
+		log.info("Dropped all cached results");
+	}
+
+	@Override
+	public ResultCacheStats getStats() {
+
+		CacheStats cacheStats = cache.synchronous().stats();
+
+		ResultCacheStats stats = new ResultCacheStats();
+		stats.setEntries(cache.synchronous().estimatedSize());
+		stats.setSizeBytes(cache.synchronous().policy().eviction()
+				.map(eviction -> eviction.weightedSize().orElse(0L))
+				.orElse(0L));
+		stats.setHits(cacheStats.hitCount());
+		stats.setMisses(cacheStats.missCount());
+		stats.setHitRate(cacheStats.hitRate());
+		stats.setEvictions(cacheStats.evictionCount());
+		return stats;
+	}
+
+	private static boolean cacheable(SSHCommandResult result) {
+		return !Boolean.TRUE.equals(result.getTimedOut()) && result.getExitSignal() == null;
+	}
+
+	private static Entry await(CompletableFuture<Entry> future) throws Exception {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the cached command", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) throw (Exception) cause;
+			throw (Error) cause;
+		}
+	}
+
+	private static final class Key {
+
+		private final String clientId;
+		private final String cmd;
+		private final Boolean pty;
+		private final Integer maxOutputBytes;
+		private final OutputLimitMode outputLimitMode;
+
+		private Key(String clientId, CMD CMD) {
+			this.clientId = clientId;
+			this.cmd = CMD.getCmd();
+			this.pty = CMD.getPty();
+			this.maxOutputBytes = CMD.getMaxOutputBytes();
+			this.outputLimitMode = CMD.getOutputLimitMode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key key = (Key) o;
+			return clientId.equals(key.clientId)
+					&& Objects.equals(cmd, key.cmd)
+					&& Objects.equals(pty, key.pty)
+					&& Objects.equals(maxOutputBytes, key.maxOutputBytes)
+					&& outputLimitMode == key.outputLimitMode;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(clientId, cmd, pty, maxOutputBytes, outputLimitMode);
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final SSHCommandResult result;
+		private final long ttlNanos;
+		private final int weight;
+
+		private Entry(SSHCommandResult result, long ttlNanos) {
+			this.result = result;
+			this.ttlNanos = ttlNanos;
+			this.weight = ENTRY_OVERHEAD + length(result.getOutput()) + length(result.getStderr());
+		}
+
+		private static int length(String output) {
+			return output == null ? 0 : output.length();
+		}
+
+	}
+
+	/** Every entry lives for the TTL its command asked for; a running command does not expire. */
+	private static final class EntryExpiry implements Expiry<Key, Entry> {
+
+		@Override
+		public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+			return entry.ttlNanos;
+		}
+
+		@Override
+		public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+			return entry.ttlNanos;
+		}
+
+		@Override
+		public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
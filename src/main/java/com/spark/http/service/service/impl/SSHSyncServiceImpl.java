@@ -0,0 +1,325 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHSyncProperties;
+import com.spark.http.service.config.SSHTransferProperties;
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.OutputLimitMode;
+import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.model.entity.Sync;
+import com.spark.http.service.model.entity.SyncAction;
+import com.spark.http.service.model.entity.SyncFileResult;
+import com.spark.http.service.model.entity.SyncResult;
+import com.spark.http.service.model.entity.TransferOptions;
+import com.spark.http.service.model.entity.TransferResult;
+import com.spark.http.service.model.exceptions.CustomFileNotFoundException;
+import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.service.abs.SSHSyncService;
+import com.spark.http.service.service.abs.SSHTransferService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sends only what differs between a local file or directory and its remote copy. Files are
+ * compared by their whole-file SHA-256 first, hashed remotely by batched sha256sum calls. A
+ * changed file that is large enough is then compared block by block: the remote side hashes
+ * fixed, aligned blocks and only the blocks whose hash differs are rewritten in place over
+ * SFTP. Aligned blocks find changes that keep the file layout, such as rewritten entries in a
+ * jar; content that moved to another offset is sent again.
+ */
+@Service
+public class SSHSyncServiceImpl implements SSHSyncService {
+
+	private static final Logger log = LogManager.getLogger(SSHSyncServiceImpl.class);
+
+	private static final int SHA256_HEX_LENGTH = 64;
+
+	private final SSHClientService sshClientService;
+	private final SSHTransferService sshTransferService;
+	private final SSHTransferProperties transferProperties;
+	private final SSHSyncProperties properties;
+
+	@Autowired
+	public SSHSyncServiceImpl(SSHClientService sshClientService,
+							  SSHTransferService sshTransferService,
+							  SSHTransferProperties transferProperties,
+							  SSHSyncProperties properties) {
+		this.sshClientService = sshClientService;
+		this.sshTransferService = sshTransferService;
+		this.transferProperties = transferProperties;
+		this.properties = properties;
+	}
+
+	@Override
+	public SyncResult sync(String clientId, Sync sync) throws IOException {
+
+		if (isBlank(sync.getLocalPath())) throw new IllegalArgumentException("localPath must not be empty");
+		if (isBlank(sync.getRemotePath())) throw new IllegalArgumentException("remotePath must not be empty");
+
+		Path localRoot = Paths.get(sync.getLocalPath());
+		if (!Files.exists(localRoot)) throw new CustomFileNotFoundException("File not found: " + sync.getLocalPath());
+
+		sshClientService.getClientSession(clientId);
+
+		int blockSize = sync.getBlockSize() != null && sync.getBlockSize() > 0 ? sync.getBlockSize() : properties.getBlockSize();
+		boolean dryRun = Boolean.TRUE.equals(sync.getDryRun());
+
+		// relative path -> local file and remote file
+		Map<String, Path> localFiles = localFiles(localRoot);
+		Map<String, String> remoteFiles = new HashMap<>();
+		String remoteRoot = RemotePaths.resolve(sync.getRemotePath());
+		for (String relativePath : localFiles.keySet()) {
+			remoteFiles.put(relativePath, Files.isDirectory(localRoot) ? child(remoteRoot, relativePath) : remoteRoot);
+		}
+
+		long started = System.nanoTime();
+
+		Map<String, String> remoteChecksums = remoteChecksums(clientId, remoteFiles.values());
+		if (!dryRun) createParents(clientId, remoteFiles.values().stream()
+				.filter(path -> !remoteChecksums.containsKey(path))
+				.collect(Collectors.toList()));
+
+		SyncResult result = new SyncResult();
+		result.setLocalPath(sync.getLocalPath());
+		result.setRemotePath(sync.getRemotePath());
+		result.setDryRun(dryRun);
+		result.setChanges(new ArrayList<>());
+
+		int unchanged = 0;
+		int patched = 0;
+		int uploaded = 0;
+		long totalBytes = 0;
+		long transferredBytes = 0;
+
+		for (Map.Entry<String, Path> entry : localFiles.entrySet()) {
+			String remoteFile = remoteFiles.get(entry.getKey());
+
+			SyncFileResult fileResult;
+			try (LocalFileSource source = new LocalFileSource(entry.getValue(),
+					transferProperties.getLocalReadMode(), transferProperties.getMappedRegionSize())) {
+				fileResult = syncFile(clientId, source, remoteFile, remoteChecksums.get(remoteFile), blockSize, dryRun);
+			}
+			fileResult.setPath(entry.getKey());
+
+			totalBytes += fileResult.getTotalBytes();
+			transferredBytes += fileResult.getTransferredBytes();
+
+			switch (fileResult.getAction()) {
+				case UNCHANGED:
+					unchanged++;
+					break;
+				case PATCHED:
+					patched++;
+					result.getChanges().add(fileResult);
+					break;
+				default:
+					uploaded++;
+					result.getChanges().add(fileResult);
+			}
+		}
+
+		result.setFiles(localFiles.size());
+		result.setUnchangedFiles(unchanged);
+		result.setPatchedFiles(patched);
+		result.setUploadedFiles(uploaded);
+		result.setTotalBytes(totalBytes);
+		result.setTransferredBytes(transferredBytes);
+		result.setBytesSaved(totalBytes - transferredBytes);
+		result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+		log.info("Synced {} files to client with ID: {}, path: {} - {} unchanged, {} patched, {} uploaded, {} of {} bytes sent{}",
+				result.getFiles(), clientId, sync.getRemotePath(), unchanged, patched, uploaded,
+				transferredBytes, totalBytes, dryRun ? " (dry run)" : "");
+		return result;
+	}
+
+	private SyncFileResult syncFile(String clientId, LocalFileSource source, String remoteFile,
+									String remoteChecksum, int blockSize, boolean dryRun) throws IOException {
+
+		long length = source.length();
+		String checksum = source.sha256();
+
+		if (checksum.equals(remoteChecksum)) return fileResult(SyncAction.UNCHANGED, length, 0, null);
+
+		if (remoteChecksum == null || length < properties.getMinDeltaBytes()) {
+			long transferred = dryRun ? length : upload(clientId, source, remoteFile);
+			return fileResult(SyncAction.UPLOADED, length, transferred, null);
+		}
+
+		BitSet changed = changedBlocks(clientId, source, remoteFile, blockSize);
+		int changedBlocks = changed.cardinality();
+
+		if (dryRun) {
+			long changedBytes = 0;
+			for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+				changedBytes += Math.min(blockSize, length - (long) i * blockSize);
+			}
+			return fileResult(SyncAction.PATCHED, length, changedBytes, changedBlocks);
+		}
+
+		long transferred = sshTransferService.patch(clientId, source, remoteFile, blockSize, changed).getTransferredBytes();
+
+		if (!checksum.equals(remoteChecksums(clientId, Collections.singletonList(remoteFile)).get(remoteFile))) {
+			log.warn("Patched file {} on client with ID: {} does not match the local file, uploading it whole", remoteFile, clientId);
+			return fileResult(SyncAction.UPLOADED, length, transferred + upload(clientId, source, remoteFile), null);
+		}
+
+		return fileResult(SyncAction.PATCHED, length, transferred, changedBlocks);
+	}
+
+	private long upload(String clientId, LocalFileSource source, String remoteFile) throws IOException {
+		TransferResult transferResult = sshTransferService.upload(clientId, source, remoteFile, new TransferOptions(), null);
+		return transferResult.getTransferredBytes();
+	}
+
+	/**
+	 * Hashes the aligned blocks of the remote file with dd and sha256sum and returns the local
+	 * blocks that differ, including those past the end of the remote file. Remote blocks past
+	 * the end of the local file are not hashed, the patch truncates them.
+	 */
+	private BitSet changedBlocks(String clientId, LocalFileSource source, String remoteFile, int blockSize) throws IOException {
+
+		long length = source.length();
+		int localBlocks = (int) ((length + blockSize - 1) / blockSize);
+
+		String script = "f=" + RemotePaths.quote(remoteFile) + "; s=$(wc -c < \"$f\") || exit 1; echo \"$s\"; "
+				+ "n=$(( (s + " + blockSize + " - 1) / " + blockSize + " )); [ \"$n\" -gt " + localBlocks + " ] && n=" + localBlocks + "; "
+				+ "i=0; while [ \"$i\" -lt \"$n\" ]; do "
+				+ "dd if=\"$f\" bs=" + blockSize + " skip=\"$i\" count=1 2>/dev/null | sha256sum | cut -c1-" + SHA256_HEX_LENGTH + "; "
+				+ "i=$((i + 1)); done";
+
+		SSHCommandResult commandResult = execute(clientId, script, (localBlocks + 1) * (SHA256_HEX_LENGTH + 1) + 32);
+		if (commandResult.getExitStatus() == null || commandResult.getExitStatus() != 0) {
+			throw new IOException("hashing blocks of " + remoteFile + " failed: " + commandResult.getStderr().trim());
+		}
+
+		String[] lines = commandResult.getOutput().trim().split("\n");
+		List<String> remoteHashes = new ArrayList<>();
+		for (int i = 1; i < lines.length; i++) remoteHashes.add(lines[i].trim());
+
+		BitSet changed = new BitSet(localBlocks);
+		for (int i = 0; i < localBlocks; i++) {
+			long start = (long) i * blockSize;
+			if (i >= remoteHashes.size() || !remoteHashes.get(i).equals(source.sha256(start, Math.min(length, start + blockSize)))) {
+				changed.set(i);
+			}
+		}
+		return changed;
+	}
+
+	/** SHA-256 of every remote file that exists and is readable, by path. */
+	private Map<String, String> remoteChecksums(String clientId, Collection<String> remoteFiles) throws IOException {
+
+		Map<String, String> checksums = new HashMap<>();
+		List<String> paths = new ArrayList<>(remoteFiles);
+
+		for (int from = 0; from < paths.size(); from += properties.getChecksumBatchSize()) {
+			List<String> batch = paths.subList(from, Math.min(paths.size(), from + properties.getChecksumBatchSize()));
+
+			StringBuilder command = new StringBuilder("sha256sum --");
+			int maxOutputBytes = 0;
+			for (String path : batch) {
+				command.append(' ').append(RemotePaths.quote(path));
+				maxOutputBytes += SHA256_HEX_LENGTH + path.length() * 2 + 4;
+			}
+			// missing files only show up on stderr and in the exit status
+			command.append(" 2>/dev/null; true");
+
+			SSHCommandResult commandResult = execute(clientId, command.toString(), maxOutputBytes);
+			for (String line : commandResult.getOutput().split("\n")) {
+				// names with a backslash or newline are printed escaped, such files are treated as changed
+				if (line.length() <= SHA256_HEX_LENGTH + 2 || line.startsWith("\\")) continue;
+				checksums.put(line.substring(SHA256_HEX_LENGTH + 2), line.substring(0, SHA256_HEX_LENGTH));
+			}
+		}
+		return checksums;
+	}
+
+	private void createParents(String clientId, Collection<String> remoteFiles) throws IOException {
+
+		Set<String> parents = new LinkedHashSet<>();
+		for (String remoteFile : remoteFiles) {
+			int slash = remoteFile.lastIndexOf('/');
+			if (slash > 0) parents.add(remoteFile.substring(0, slash));
+		}
+		if (parents.isEmpty()) return;
+
+		StringBuilder command = new StringBuilder("mkdir -p --");
+		parents.forEach(parent -> command.append(' ').append(RemotePaths.quote(parent)));
+
+		SSHCommandResult commandResult = execute(clientId, command.toString(), 1024);
+		if (commandResult.getExitStatus() == null || commandResult.getExitStatus() != 0) {
+			throw new IOException("creating remote directories failed: " + commandResult.getStderr().trim());
+		}
+	}
+
+	private SSHCommandResult execute(String clientId, String command, int maxOutputBytes) throws IOException {
+
+		CMD cmd = new CMD();
+		cmd.setCmd(command);
+		cmd.setPty(false);
+
+		SSHCommandResult commandResult = sshClientService.execute(clientId, cmd,
+				new OutputCollector(maxOutputBytes, OutputLimitMode.HEAD),
+				new OutputCollector(4096, OutputLimitMode.TAIL));
+
+		if (commandResult.getStdoutBytes() > maxOutputBytes) throw new IOException("unexpected output of: " + command);
+		return commandResult;
+	}
+
+	private static Map<String, Path> localFiles(Path root) throws IOException {
+
+		Map<String, Path> files = new TreeMap<>();
+		if (!Files.isDirectory(root)) {
+			files.put(root.getFileName().toString(), root);
+			return files;
+		}
+
+		try (Stream<Path> paths = Files.walk(root)) {
+			for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+				List<String> names = new ArrayList<>();
+				root.relativize(path).forEach(name -> names.add(name.toString()));
+				files.put(String.join("/", names), path);
+			}
+		}
+		return files;
+	}
+
+	private static SyncFileResult fileResult(SyncAction action, long totalBytes, long transferredBytes, Integer changedBlocks) {
+		SyncFileResult fileResult = new SyncFileResult();
+		fileResult.setAction(action);
+		fileResult.setTotalBytes(totalBytes);
+		fileResult.setTransferredBytes(transferredBytes);
+		fileResult.setChangedBlocks(changedBlocks);
+		return fileResult;
+	}
+
+	private static String child(String root, String relativePath) {
+		if (root.equals(".")) return relativePath;
+		return root.endsWith("/") ? root + relativePath : root + "/" + relativePath;
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim().isEmpty();
+	}
+
+}
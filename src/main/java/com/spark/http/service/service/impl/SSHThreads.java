@@ -0,0 +1,61 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHExecutionProperties;
+import com.spark.http.service.model.entity.ThreadMode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads for blocking work: HTTP requests, streamed responses and the ssh worker pools. With
+ * {@code ssh.execution.thread-mode=VIRTUAL} tasks run on virtual threads, which give up their
+ * carrier while sshj waits for the server, so a waiting request or command no longer holds a
+ * platform thread of its own. How much runs at once is then up to the pool sizes and
+ * {@code ssh.admission.*}, not to the number of threads.
+ * <p>
+ * sshj waits inside {@code synchronized}, which only releases the carrier from Java 24 on, so
+ * the mode refuses to start on older JVMs. Every pooled connection still has a platform reader
+ * thread of sshj's own, so the savings come from many commands sharing few connections.
+ */
+@Component
+public class SSHThreads {
+
+	private static final Logger log = LogManager.getLogger(SSHThreads.class);
+
+	private final boolean virtual;
+
+	@Autowired
+	public SSHThreads(SSHExecutionProperties properties) {
+		virtual = properties.getThreadMode() == ThreadMode.VIRTUAL;
+
+		if (virtual) {
+			if (!VirtualThreadFactory.isSupported()) {
+				throw new IllegalStateException("ssh.execution.thread-mode=VIRTUAL needs Java "
+						+ VirtualThreadFactory.MIN_JAVA_VERSION + " or later, running on " + System.getProperty("java.version"));
+			}
+			log.info("Running requests and ssh work on virtual threads");
+		}
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/** Threads of a bounded pool; the pool size still limits how many tasks run at once. */
+	public ThreadFactory factory(String prefix) {
+		return virtual ? new VirtualThreadFactory(prefix) : new NamedThreadFactory(prefix);
+	}
+
+	/** Runs every task on a thread of its own: a new virtual thread, or a cached platform thread. */
+	public ExecutorService perTask(String prefix) {
+		return virtual
+				? new VirtualThreadFactory(prefix).newThreadPerTaskExecutor()
+				: Executors.newCachedThreadPool(new NamedThreadFactory(prefix));
+	}
+
+}
@@ -0,0 +1,483 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.config.SSHTransferProperties;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.model.entity.TransferOptions;
+import com.spark.http.service.model.entity.TransferProtocol;
+import com.spark.http.service.model.entity.TransferResult;
+import com.spark.http.service.model.exceptions.CustomFileNotFoundException;
+import com.spark.http.service.model.exceptions.PayloadTooLargeException;
+import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.service.abs.SSHConnectionPool;
+import com.spark.http.service.service.abs.SSHTransferService;
+import net.schmizz.sshj.SSHClient;
+import net.schmizz.sshj.sftp.FileAttributes;
+import net.schmizz.sshj.sftp.OpenMode;
+import net.schmizz.sshj.sftp.RemoteFile;
+import net.schmizz.sshj.sftp.SFTPClient;
+import net.schmizz.sshj.xfer.InMemorySourceFile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Moves file content to clients over SFTP or SCP on pooled transports. SFTP writes are
+ * pipelined: up to {@code maxUnconfirmedWrites} requests are in flight, so throughput is not
+ * bound by the round trip time. Large local files are split into ranges that are written into
+ * the same remote file in parallel, each over its own SFTP channel.
+ */
+@Service
+public class SSHTransferServiceImpl implements SSHTransferService {
+
+	private static final Logger log = LogManager.getLogger(SSHTransferServiceImpl.class);
+
+	private final SSHClientService sshClientService;
+	private final SSHConnectionPool connectionPool;
+	private final SSHTransferProperties properties;
+	private final SSHMetrics metrics;
+	private final SSHThreads threads;
+
+	private ThreadPoolExecutor executor;
+
+	@Autowired
+	public SSHTransferServiceImpl(SSHClientService sshClientService,
+								  SSHConnectionPool connectionPool,
+								  SSHTransferProperties properties,
+								  SSHMetrics metrics,
+								  SSHThreads threads) {
+		this.sshClientService = sshClientService;
+		this.connectionPool = connectionPool;
+		this.properties = properties;
+		this.metrics = metrics;
+		this.threads = threads;
+	}
+
+	@Override
+	public TransferResult upload(String clientId, String localFilePath, String remoteFilePath, TransferOptions options) throws IOException {
+
+		Path localFile = Paths.get(localFilePath);
+		if (!Files.isRegularFile(localFile)) throw new CustomFileNotFoundException("File not found: " + localFilePath);
+
+		try (LocalFileSource source = new LocalFileSource(localFile, properties.getLocalReadMode(), properties.getMappedRegionSize())) {
+			return upload(clientId, source, remoteFilePath, options, null);
+		}
+	}
+
+	@Override
+	public TransferResult upload(String clientId, LocalFileSource source, String remoteFilePath,
+								 TransferOptions options, LongConsumer progress) throws IOException {
+
+		TransferProtocol protocol = protocol(options);
+		long length = source.length();
+
+		if (protocol == TransferProtocol.SCP) {
+			InputStream data = new ChunkReaderInputStream(progress(source.reader(0, length), progress), properties.getBufferSize());
+			return transfer(clientId, "upload", remoteFilePath, protocol, (sshClientInfo, path) ->
+					writeScp(clientId, sshClientInfo, path, data, length, options));
+		}
+
+		int ranges = rangeCount(options, length);
+		if (ranges > 1) {
+			return transfer(clientId, "upload", remoteFilePath, protocol, (sshClientInfo, path) ->
+					writeRanges(clientId, sshClientInfo, path, source, ranges, options, progress));
+		}
+
+		ChunkReader reader = progress(source.reader(0, length), progress);
+		return transfer(clientId, "upload", remoteFilePath, protocol, (sshClientInfo, path) ->
+				connectionPool.withChannel(clientId, sshClientInfo, SSHClient::newSFTPClient,
+						sftp -> writeSftp(sftp, path, reader, length, options)));
+	}
+
+	@Override
+	public TransferResult patch(String clientId, LocalFileSource source, String remoteFilePath, int blockSize, BitSet blocks) throws IOException {
+
+		long length = source.length();
+
+		return transfer(clientId, "patch", remoteFilePath, TransferProtocol.SFTP, (sshClientInfo, path) ->
+				connectionPool.withChannel(clientId, sshClientInfo, SSHClient::newSFTPClient, sftp -> {
+					long transferred = 0;
+					try (RemoteFile file = sftp.open(path, EnumSet.of(OpenMode.WRITE, OpenMode.CREAT))) {
+						// every run of adjacent changed blocks goes out as one pipelined write
+						int to;
+						for (int from = blocks.nextSetBit(0); from >= 0; from = blocks.nextSetBit(to)) {
+							to = blocks.nextClearBit(from);
+							long start = (long) from * blockSize;
+							long end = Math.min(length, (long) to * blockSize);
+							if (start >= length) break;
+
+							transferred += writeRange(file, source.reader(start, end), start, false, false).getTransferredBytes();
+						}
+
+						if (file.length() != length) file.setLength(length);
+					}
+					return sent(length, transferred, length - transferred);
+				}));
+	}
+
+	@Override
+	public TransferResult write(String clientId, String remoteFilePath, InputStream data, long length, TransferOptions options) throws IOException {
+
+		long maxBytes = properties.getMaxUploadBytes();
+		if (maxBytes > 0) {
+			if (length > maxBytes) throw new PayloadTooLargeException(maxBytes);
+			data = new SizeLimitedInputStream(data, maxBytes);
+		}
+
+		InputStream source = data;
+		TransferProtocol protocol = protocol(options);
+
+		if (protocol == TransferProtocol.SCP) {
+			return transfer(clientId, "write", remoteFilePath, protocol, (sshClientInfo, path) ->
+					writeScp(clientId, sshClientInfo, path, source, length, options));
+		}
+
+		return transfer(clientId, "write", remoteFilePath, protocol, (sshClientInfo, path) ->
+				connectionPool.withChannel(clientId, sshClientInfo, SSHClient::newSFTPClient,
+						sftp -> writeSftp(sftp, path, new StreamChunkReader(source), length, options)));
+	}
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+				threads.factory("ssh-transfer"));
+	}
+
+	@PreDestroy
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	private TransferResult transfer(String clientId, String operation, String remoteFilePath,
+								   TransferProtocol protocol, Transfer transfer) throws IOException {
+
+		SSHClientInfo sshClientInfo = sshClientService.getClientSession(clientId);
+
+		long started = System.nanoTime();
+		TransferResult result = metrics.inFlight(operation, () -> metrics.time(SSHMetrics.TRANSFER, clientId, operation, () ->
+				transfer.run(sshClientInfo, RemotePaths.resolve(remoteFilePath))));
+		long durationNanos = System.nanoTime() - started;
+
+		metrics.uploadBytes(clientId, protocol.name().toLowerCase(), result.getTransferredBytes());
+
+		result.setRemotePath(remoteFilePath);
+		result.setProtocol(protocol);
+		result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+		result.setBytesPerSecond(result.getTransferredBytes() * TimeUnit.SECONDS.toNanos(1) / Math.max(durationNanos, 1));
+
+		log.info("Transferred {} bytes to client with ID: {}, path: {} over {} in {} streams, {} ms ({} bytes/s)",
+				result.getTransferredBytes(), clientId, remoteFilePath, protocol, result.getStreams(),
+				result.getDurationMillis(), result.getBytesPerSecond());
+		return result;
+	}
+
+	private TransferResult writeScp(String clientId, SSHClientInfo sshClientInfo, String path,
+									InputStream data, long length, TransferOptions options) throws IOException {
+
+		if (length < 0) throw new IllegalArgumentException("SCP transfer needs the content length");
+		if (Boolean.TRUE.equals(options.getResume()) || Boolean.TRUE.equals(options.getSparse())) {
+			throw new IllegalArgumentException("resume and sparse transfers need SFTP");
+		}
+
+		return connectionPool.withChannel(clientId, sshClientInfo, SSHClient::newSCPFileTransfer, scp -> {
+			scp.upload(new StreamSourceFile(Paths.get(path).getFileName().toString(), data, length), path);
+			return sent(length, length, 0);
+		});
+	}
+
+	private TransferResult writeSftp(SFTPClient sftp, String path, ChunkReader reader, long length, TransferOptions options) throws IOException {
+
+		long offset = 0;
+		if (Boolean.TRUE.equals(options.getResume())) {
+			FileAttributes attributes = sftp.statExistence(path);
+			// a remote file longer than the source is not a partial copy of it, rewrite it
+			if (attributes != null && (length < 0 || attributes.getSize() <= length)) offset = attributes.getSize();
+		}
+		reader.skip(offset);
+
+		Set<OpenMode> modes = offset > 0
+				? EnumSet.of(OpenMode.WRITE, OpenMode.CREAT)
+				: EnumSet.of(OpenMode.WRITE, OpenMode.CREAT, OpenMode.TRUNC);
+
+		TransferResult result;
+		try (RemoteFile file = sftp.open(path, modes)) {
+			result = writeRange(file, reader, offset, true, Boolean.TRUE.equals(options.getSparse()));
+		}
+
+		if (length >= 0 && result.getTotalBytes() != length) {
+			throw new EOFException("expected " + length + " bytes but received " + result.getTotalBytes());
+		}
+
+		result.setSkippedBytes(result.getSkippedBytes() + offset);
+		return result;
+	}
+
+	/**
+	 * Splits the file into ranges aligned to the write size and uploads them concurrently into
+	 * one remote file; every range lands at its own offset, so nothing has to be joined remotely.
+	 */
+	private TransferResult writeRanges(String clientId, SSHClientInfo sshClientInfo, String path, LocalFileSource source,
+									   int ranges, TransferOptions options, LongConsumer progress) throws IOException {
+
+		long length = source.length();
+		boolean sparse = Boolean.TRUE.equals(options.getSparse());
+
+		connectionPool.withChannel(clientId, sshClientInfo, SSHClient::newSFTPClient, sftp -> {
+			sftp.open(path, EnumSet.of(OpenMode.WRITE, OpenMode.CREAT, OpenMode.TRUNC)).close();
+			return null;
+		});
+
+		long chunkSize = properties.getChunkSize();
+		long rangeSize = ((length + ranges - 1) / ranges + chunkSize - 1) / chunkSize * chunkSize;
+
+		List<Future<TransferResult>> futures = new ArrayList<>();
+		try {
+			for (long start = 0; start < length; start += rangeSize) {
+				long rangeStart = start;
+				long rangeEnd = Math.min(length, start + rangeSize);
+				ChunkReader reader = progress(source.reader(rangeStart, rangeEnd), progress);
+
+				futures.add(executor.submit(() -> connectionPool.withChannel(clientId, sshClientInfo, SSHClient::newSFTPClient, sftp -> {
+					try (RemoteFile file = sftp.open(path, EnumSet.of(OpenMode.WRITE))) {
+						return writeRange(file, reader, rangeStart, rangeEnd == length, sparse);
+					}
+				})));
+			}
+
+			TransferResult total = sent(length, 0, 0);
+			for (Future<TransferResult> future : futures) {
+				TransferResult range = future.get();
+				total.setTransferredBytes(total.getTransferredBytes() + range.getTransferredBytes());
+				total.setSkippedBytes(total.getSkippedBytes() + range.getSkippedBytes());
+			}
+			total.setStreams(futures.size());
+			return total;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while uploading file ranges", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			futures.forEach(future -> future.cancel(true));
+		}
+	}
+
+	/**
+	 * Writes the reader's content starting at {@code offset}. With {@code sparse} all-zero chunks
+	 * are skipped; a hole at the very end of the file is closed by writing its last byte, since
+	 * setting the size does not grow the file on every server.
+	 */
+	private TransferResult writeRange(RemoteFile file, ChunkReader reader, long offset, boolean last, boolean sparse) throws IOException {
+
+		long transferred = 0;
+		long skipped = 0;
+
+		byte[] chunk = new byte[properties.getChunkSize()];
+		OutputStream out = null;
+		boolean hole = false;
+		int bytesRead;
+		while ((bytesRead = reader.read(chunk)) > 0) {
+			if (sparse && isZero(chunk, bytesRead)) {
+				// waits for the writes in flight, the next data chunk starts a new pipeline past the hole
+				if (out != null) out.close();
+				out = null;
+				hole = true;
+				skipped += bytesRead;
+			} else {
+				if (out == null) out = file.new RemoteFileOutputStream(offset, properties.getMaxUnconfirmedWrites());
+				out.write(chunk, 0, bytesRead);
+				hole = false;
+				transferred += bytesRead;
+			}
+			offset += bytesRead;
+		}
+		if (out != null) out.close();
+
+		if (hole && last) {
+			file.write(offset - 1, new byte[1], 0, 1);
+			transferred++;
+			skipped--;
+		}
+
+		return sent(offset, transferred, skipped);
+	}
+
+	private static ChunkReader progress(ChunkReader reader, LongConsumer progress) {
+		if (progress == null) return reader;
+
+		return new ChunkReader() {
+			@Override
+			public int read(byte[] chunk) throws IOException {
+				int bytesRead = reader.read(chunk);
+				if (bytesRead > 0) progress.accept(bytesRead);
+				return bytesRead;
+			}
+
+			@Override
+			public void skip(long bytes) throws IOException {
+				reader.skip(bytes);
+			}
+		};
+	}
+
+	private int rangeCount(TransferOptions options, long length) {
+
+		if (Boolean.TRUE.equals(options.getResume())) return 1;
+
+		int streams = options.getParallelStreams() != null ? options.getParallelStreams() : properties.getParallelStreams();
+		long byMinRange = properties.getMinRangeBytes() > 0 ? length / properties.getMinRangeBytes() : streams;
+
+		return (int) Math.max(1, Math.min(streams, byMinRange));
+	}
+
+	private TransferProtocol protocol(TransferOptions options) {
+		return options.getProtocol() != null ? options.getProtocol() : properties.getProtocol();
+	}
+
+	private static TransferResult sent(long totalBytes, long transferredBytes, long skippedBytes) {
+		TransferResult result = new TransferResult();
+		result.setTotalBytes(totalBytes);
+		result.setTransferredBytes(transferredBytes);
+		result.setSkippedBytes(skippedBytes);
+		result.setStreams(1);
+		return result;
+	}
+
+	private static boolean isZero(byte[] chunk, int length) {
+		for (int i = 0; i < length; i++) {
+			if (chunk[i] != 0) return false;
+		}
+		return true;
+	}
+
+	private interface Transfer {
+		TransferResult run(SSHClientInfo sshClientInfo, String path) throws IOException;
+	}
+
+	private static class StreamChunkReader implements ChunkReader {
+
+		private final InputStream in;
+
+		StreamChunkReader(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read(byte[] chunk) throws IOException {
+			int total = 0;
+			while (total < chunk.length) {
+				int bytesRead = in.read(chunk, total, chunk.length - total);
+				if (bytesRead == -1) break;
+				total += bytesRead;
+			}
+			return total;
+		}
+
+		@Override
+		public void skip(long bytes) throws IOException {
+			long remaining = bytes;
+			while (remaining > 0) {
+				long skipped = in.skip(remaining);
+				if (skipped <= 0) {
+					if (in.read() == -1) throw new EOFException("source is shorter than the remote file");
+					skipped = 1;
+				}
+				remaining -= skipped;
+			}
+		}
+
+	}
+
+	private static class ChunkReaderInputStream extends InputStream {
+
+		private final ChunkReader reader;
+		private final byte[] buffer;
+		private int position;
+		private int limit;
+
+		ChunkReaderInputStream(ChunkReader reader, int bufferSize) {
+			this.reader = reader;
+			this.buffer = new byte[bufferSize];
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) return -1;
+			return buffer[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) return 0;
+			if (!fill()) return -1;
+
+			int n = Math.min(len, limit - position);
+			System.arraycopy(buffer, position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		private boolean fill() throws IOException {
+			if (position < limit) return true;
+			limit = reader.read(buffer);
+			position = 0;
+			return limit > 0;
+		}
+
+	}
+
+	private static class StreamSourceFile extends InMemorySourceFile {
+
+		private final String name;
+		private final InputStream data;
+		private final long length;
+
+		StreamSourceFile(String name, InputStream data, long length) {
+			this.name = name;
+			this.data = data;
+			this.length = length;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public long getLength() {
+			return length;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return data;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.spark.http.service.service.impl;
+
+import com.spark.http.service.model.exceptions.PayloadTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the transfer as soon as more than {@code maxBytes} were read, for bodies whose size is
+ * not known up front.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+	private final long maxBytes;
+	private long count;
+
+	public SizeLimitedInputStream(InputStream in, long maxBytes) {
+		super(in);
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) counted(1);
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int bytesRead = super.read(b, off, len);
+		if (bytesRead > 0) counted(bytesRead);
+		return bytesRead;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		if (skipped > 0) counted(skipped);
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void counted(long bytes) {
+		count += bytes;
+		if (count > maxBytes) throw new PayloadTooLargeException(maxBytes);
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.spark.http.service.service.impl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named virtual threads. The sources are compiled for Java 8, so the virtual thread API
+ * is reached through reflection; {@link #isSupported()} tells whether the running JVM can use it.
+ */
+class VirtualThreadFactory implements ThreadFactory {
+
+	/**
+	 * sshj waits for channel data with {@code Object.wait()} inside {@code synchronized}; before
+	 * Java 24 (JEP 491) that pins the carrier thread, and the scheduler adds at most 256 carriers
+	 * to make up for pinned ones, so reads of many commands would stall.
+	 */
+	static final int MIN_JAVA_VERSION = 24;
+
+	private static final Method OF_VIRTUAL;
+	private static final Method NAME;
+	private static final Method UNSTARTED;
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method unstarted = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class);
+			unstarted = builder.getMethod("unstarted", Runnable.class);
+			newThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (ReflectiveOperationException e) {
+			// older JVM, isSupported() is false
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		UNSTARTED = unstarted;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private final String prefix;
+	private final AtomicInteger counter = new AtomicInteger();
+
+	VirtualThreadFactory(String prefix) {
+		this.prefix = prefix;
+	}
+
+	static boolean isSupported() {
+		if (javaVersion() < MIN_JAVA_VERSION || OF_VIRTUAL == null || NEW_THREAD_PER_TASK_EXECUTOR == null) return false;
+		try {
+			newVirtualThread("probe", () -> { });
+			return true;
+		} catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		return newVirtualThread(prefix + "-" + counter.incrementAndGet(), runnable);
+	}
+
+	/** {@code Executors.newThreadPerTaskExecutor} with this factory. */
+	ExecutorService newThreadPerTaskExecutor() {
+		return (ExecutorService) invoke(NEW_THREAD_PER_TASK_EXECUTOR, null, this);
+	}
+
+	/** Feature version of the running JVM, 8 for {@code 1.8}. */
+	private static int javaVersion() {
+		String version = System.getProperty("java.specification.version");
+		if (version.startsWith("1.")) version = version.substring(2);
+		try {
+			return Integer.parseInt(version);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private static Thread newVirtualThread(String name, Runnable runnable) {
+		Object builder = invoke(OF_VIRTUAL, null);
+		builder = invoke(NAME, builder, name);
+		return (Thread) invoke(UNSTARTED, builder, runnable);
+	}
+
+	private static Object invoke(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -2,28 +2,52 @@ package com.spark.http.service.webapp;
 
 import com.spark.http.service.model.dto.responce.ErrorResponseDto;
 import com.spark.http.service.model.exceptions.ClientIdNotFoundException;
+import com.spark.http.service.model.exceptions.ClientOverloadedException;
+import com.spark.http.service.model.exceptions.ConnectionPoolExhaustedException;
 import com.spark.http.service.model.exceptions.CustomFileNotFoundException;
+import com.spark.http.service.model.exceptions.HostKeyNotFoundException;
+import com.spark.http.service.model.exceptions.JobNotFoundException;
+import com.spark.http.service.model.exceptions.MalformedBodyException;
+import com.spark.http.service.model.exceptions.OverloadedException;
+import com.spark.http.service.model.exceptions.PayloadTooLargeException;
+import com.spark.http.service.model.exceptions.ServiceOverloadedException;
+import com.spark.http.service.service.impl.SSHMetrics;
 import net.schmizz.sshj.userauth.UserAuthException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.UnknownHostException;
+import java.util.concurrent.RejectedExecutionException;
 
+/** Every handled exception is also counted in {@code ssh.errors}, tagged with its type and the status it maps to. */
 @RestControllerAdvice
 public class AdviceController {
 
 	private static final Logger log = LogManager.getLogger(AdviceController.class);
 
+	private final SSHMetrics metrics;
+
+	@Autowired
+	public AdviceController(SSHMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	@ExceptionHandler(Exception.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ErrorResponseDto globalException(Exception ex) {
 
+		metrics.error(ex, HttpStatus.BAD_REQUEST);
 		String msg = ex.getMessage();
 
 		log.error(msg, ex);
@@ -35,6 +59,7 @@ public class AdviceController {
 	@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
 	public ErrorResponseDto handleIOException(IOException ex) {
 
+		metrics.error(ex, HttpStatus.INTERNAL_SERVER_ERROR);
 		String msg = ex.getMessage();
 
 		log.error(msg, ex);
@@ -46,6 +71,7 @@ public class AdviceController {
 	@ResponseStatus(HttpStatus.NOT_FOUND)
 	public ErrorResponseDto EntityNonExistException(ClientIdNotFoundException ex) {
 
+		metrics.error(ex, HttpStatus.NOT_FOUND);
 		String msg = ex.getMessage();
 
 		log.warn(msg, ex);
@@ -57,6 +83,7 @@ public class AdviceController {
 	@ResponseStatus(HttpStatus.UNAUTHORIZED)
 	public ErrorResponseDto handleUserAuthException(UserAuthException ex) {
 
+		metrics.error(ex, HttpStatus.UNAUTHORIZED);
 		String msg = ex.getMessage();
 
 		log.warn(msg, ex);
@@ -67,6 +94,7 @@ public class AdviceController {
 	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
 	public ErrorResponseDto handleUnknownHostException(UnknownHostException ex) {
 
+		metrics.error(ex, HttpStatus.SERVICE_UNAVAILABLE);
 		String msg = ex.getMessage();
 
 		log.warn(msg, ex);
@@ -78,6 +106,7 @@ public class AdviceController {
 	@ResponseStatus(HttpStatus.BAD_GATEWAY)
 	public ErrorResponseDto handleConnectException(ConnectException ex) {
 
+		metrics.error(ex, HttpStatus.BAD_GATEWAY);
 		String msg = ex.getMessage();
 
 		log.warn(msg, ex);
@@ -88,6 +117,31 @@ public class AdviceController {
 	@ResponseStatus(HttpStatus.CONFLICT)
 	public ErrorResponseDto handleCustomFileNotFoundException(CustomFileNotFoundException ex) {
 
+		metrics.error(ex, HttpStatus.CONFLICT);
+		String msg = ex.getMessage();
+
+		log.warn(msg, ex);
+		return new ErrorResponseDto(msg);
+
+	}
+
+	@ExceptionHandler(ConnectionPoolExhaustedException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ErrorResponseDto handleConnectionPoolExhaustedException(ConnectionPoolExhaustedException ex) {
+
+		metrics.error(ex, HttpStatus.SERVICE_UNAVAILABLE);
+		String msg = ex.getMessage();
+
+		log.warn(msg, ex);
+		return new ErrorResponseDto(msg);
+
+	}
+
+	@ExceptionHandler(JobNotFoundException.class)
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	public ErrorResponseDto handleJobNotFoundException(JobNotFoundException ex) {
+
+		metrics.error(ex, HttpStatus.NOT_FOUND);
 		String msg = ex.getMessage();
 
 		log.warn(msg, ex);
@@ -95,4 +149,81 @@ public class AdviceController {
 
 	}
 
+	@ExceptionHandler(HostKeyNotFoundException.class)
+	@ResponseStatus(HttpStatus.NOT_FOUND)
+	public ErrorResponseDto handleHostKeyNotFoundException(HostKeyNotFoundException ex) {
+
+		metrics.error(ex, HttpStatus.NOT_FOUND);
+		String msg = ex.getMessage();
+
+		log.warn(msg, ex);
+		return new ErrorResponseDto(msg);
+
+	}
+
+	@ExceptionHandler(RejectedExecutionException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ErrorResponseDto handleRejectedExecutionException(RejectedExecutionException ex, HttpServletRequest request) {
+
+		// a rejected streamed response is thrown here and also dispatched again as the async result,
+		// the body is written once, on the dispatch
+		if (request.isAsyncStarted()) return null;
+
+		metrics.error(ex, HttpStatus.SERVICE_UNAVAILABLE);
+		String msg = ex.getMessage();
+
+		log.warn(msg, ex);
+		return new ErrorResponseDto("Очередь задач переполнена");
+
+	}
+
+	@ExceptionHandler(MalformedBodyException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponseDto handleMalformedBodyException(MalformedBodyException ex) {
+
+		metrics.error(ex, HttpStatus.BAD_REQUEST);
+		String msg = ex.getMessage();
+
+		log.warn(msg);
+		return new ErrorResponseDto(msg);
+
+	}
+
+	@ExceptionHandler({PayloadTooLargeException.class, MaxUploadSizeExceededException.class})
+	@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+	public ErrorResponseDto handlePayloadTooLargeException(RuntimeException ex) {
+
+		metrics.error(ex, HttpStatus.PAYLOAD_TOO_LARGE);
+		String msg = ex.getMessage();
+
+		log.warn(msg, ex);
+		return new ErrorResponseDto(msg);
+
+	}
+
+	@ExceptionHandler(ClientOverloadedException.class)
+	@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+	public ErrorResponseDto handleClientOverloadedException(ClientOverloadedException ex, HttpServletResponse response) {
+		metrics.error(ex, HttpStatus.TOO_MANY_REQUESTS);
+		return overloaded(ex, response);
+	}
+
+	@ExceptionHandler(ServiceOverloadedException.class)
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ErrorResponseDto handleServiceOverloadedException(ServiceOverloadedException ex, HttpServletResponse response) {
+		metrics.error(ex, HttpStatus.SERVICE_UNAVAILABLE);
+		return overloaded(ex, response);
+	}
+
+	/** Logged without the stack trace: under overload these come in bursts and are expected. */
+	private ErrorResponseDto overloaded(OverloadedException ex, HttpServletResponse response) {
+
+		String msg = ex.getMessage();
+
+		log.warn(msg);
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+		return new ErrorResponseDto(msg);
+
+	}
+
 }
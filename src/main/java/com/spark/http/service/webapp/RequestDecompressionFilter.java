@@ -0,0 +1,241 @@
+package com.spark.http.service.webapp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.http.service.config.SSHTransferProperties;
+import com.spark.http.service.model.exceptions.MalformedBodyException;
+import com.spark.http.service.model.dto.responce.ErrorResponseDto;
+import com.spark.http.service.service.impl.SizeLimitedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Accepts request bodies sent with {@code Content-Encoding: gzip} or {@code deflate}. The body
+ * is inflated while the controller reads it, so compressed uploads are still streamed; the
+ * inflated size is capped by {@code ssh.transfer.max-upload-bytes}. Other encodings, and
+ * encoded multipart bodies, which the container parses before any filter could inflate them,
+ * are rejected with 415. A body that turns out to be corrupt while it is read fails with
+ * {@link MalformedBodyException}, which maps to 400.
+ */
+@Component
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+	private final SSHTransferProperties transferProperties;
+	private final ObjectMapper objectMapper;
+
+	@Autowired
+	public RequestDecompressionFilter(SSHTransferProperties transferProperties, ObjectMapper objectMapper) {
+		this.transferProperties = transferProperties;
+		this.objectMapper = objectMapper;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+
+		String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+		if (encoding == null || encoding.trim().equalsIgnoreCase("identity")) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		encoding = encoding.trim().toLowerCase(Locale.ROOT);
+		boolean multipart = request.getContentType() != null
+				&& request.getContentType().toLowerCase(Locale.ROOT).startsWith("multipart/");
+
+		InputStream body;
+		if (!multipart && (encoding.equals("gzip") || encoding.equals("x-gzip"))) {
+			try {
+				body = new InflatingInputStream(new GZIPInputStream(request.getInputStream(), 64 * 1024), encoding);
+			} catch (ZipException | EOFException e) {
+				reply(response, HttpStatus.BAD_REQUEST, new MalformedBodyException(encoding, e).getMessage());
+				return;
+			}
+		} else if (!multipart && encoding.equals("deflate")) {
+			body = new InflatingInputStream(new InflaterInputStream(request.getInputStream()), encoding);
+		} else {
+			reply(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding + (multipart ? " for multipart bodies" : ""));
+			return;
+		}
+
+		long maxBytes = transferProperties.getMaxUploadBytes();
+		if (maxBytes > 0) body = new SizeLimitedInputStream(body, maxBytes);
+
+		chain.doFilter(new DecompressedRequest(request, body), response);
+	}
+
+	private void reply(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), new ErrorResponseDto(message));
+	}
+
+	/** Hides the encoding and the compressed length; the inflated length is unknown. */
+	private static class DecompressedRequest extends HttpServletRequestWrapper {
+
+		private final ServletInputStream inputStream;
+
+		DecompressedRequest(HttpServletRequest request, InputStream body) {
+			super(request);
+			this.inputStream = new BodyInputStream(body);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			return inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+			return new BufferedReader(new InputStreamReader(inputStream, charset));
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return hidden(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			List<String> names = Collections.list(super.getHeaderNames())
+					.stream()
+					.filter(name -> !hidden(name))
+					.collect(Collectors.toList());
+			return Collections.enumeration(names);
+		}
+
+		private static boolean hidden(String name) {
+			return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+		}
+
+	}
+
+	/** Reports inflating errors as a bad request instead of an I/O failure of the service. */
+	private static class InflatingInputStream extends FilterInputStream {
+
+		private final String encoding;
+
+		InflatingInputStream(InputStream in, String encoding) {
+			super(in);
+			this.encoding = encoding;
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return super.read();
+			} catch (ZipException | EOFException e) {
+				throw new MalformedBodyException(encoding, e);
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			try {
+				return super.read(b, off, len);
+			} catch (ZipException | EOFException e) {
+				throw new MalformedBodyException(encoding, e);
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			try {
+				return super.skip(n);
+			} catch (ZipException | EOFException e) {
+				throw new MalformedBodyException(encoding, e);
+			}
+		}
+
+	}
+
+	/** Read blocking only: the inflater cannot tell whether the next read would block. */
+	private static class BodyInputStream extends ServletInputStream {
+
+		private final InputStream in;
+		private boolean finished;
+
+		BodyInputStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b == -1) finished = true;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int bytesRead = in.read(b, off, len);
+			if (bytesRead == -1) finished = true;
+			return bytesRead;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			throw new IllegalStateException("Non-blocking reads are not supported for compressed request bodies");
+		}
+
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.spark.http.service.webapp.controller;
+
+import com.spark.http.service.converter.AdmissionMapper;
+import com.spark.http.service.model.dto.responce.AdmissionStatsDto;
+import com.spark.http.service.service.abs.SSHAdmissionService;
+
+import io.swagger.annotations.Api;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/ssh/spark/server")
+@Api(tags = "SSH Admission Controller", description = "Контроллер для наблюдения за ограничением нагрузки")
+public class SSHAdmissionController {
+
+    private static final Logger log = LogManager.getLogger(SSHAdmissionController.class);
+
+    final private SSHAdmissionService sshAdmissionService;
+    final private AdmissionMapper admissionMapper;
+
+    @Autowired
+    public SSHAdmissionController(SSHAdmissionService sshAdmissionService, AdmissionMapper admissionMapper) {
+        this.sshAdmissionService = sshAdmissionService;
+        this.admissionMapper = admissionMapper;
+    }
+
+    @GetMapping("/admission")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить состояние ограничения нагрузки", description = "Этот эндпоинт возвращает число выполняющихся и ожидающих запросов, отказы и время ожидания для всего сервиса и для каждого клиента.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояние успешно получено")
+    })
+    public AdmissionStatsDto getStats() {
+        log.debug("Fetching admission stats");
+
+        return admissionMapper.EntityToDto(sshAdmissionService.getStats());
+
+    }
+
+}
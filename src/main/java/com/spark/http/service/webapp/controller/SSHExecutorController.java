@@ -1,14 +1,42 @@
 package com.spark.http.service.webapp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.http.service.converter.BatchMapper;
 import com.spark.http.service.converter.CMDMapper;
+import com.spark.http.service.converter.ConnectionStatusMapper;
+import com.spark.http.service.converter.DistributionMapper;
 import com.spark.http.service.converter.SSHClientInfoMapper;
 import com.spark.http.service.converter.SSHCommandResultMapper;
+import com.spark.http.service.converter.SyncMapper;
+import com.spark.http.service.converter.TransferResultMapper;
+import com.spark.http.service.model.dto.request.BatchCMDDto;
 import com.spark.http.service.model.dto.request.CMDDto;
+import com.spark.http.service.model.dto.request.DistributionDto;
 import com.spark.http.service.model.dto.request.SSHClientRequestDto;
+import com.spark.http.service.model.dto.request.SyncDto;
+import com.spark.http.service.model.dto.responce.BatchResultDto;
 import com.spark.http.service.model.dto.responce.CMDResponseDto;
+import com.spark.http.service.model.dto.responce.ConnectionStatusDto;
+import com.spark.http.service.model.dto.responce.DistributionResultDto;
 import com.spark.http.service.model.dto.responce.SSHClientResponseDto;
+import com.spark.http.service.model.dto.responce.SyncResultDto;
+import com.spark.http.service.model.dto.responce.TransferResultDto;
+import com.spark.http.service.model.entity.BatchCMD;
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.ConnectionStatus;
+import com.spark.http.service.model.entity.Distribution;
+import com.spark.http.service.model.entity.ProbeLevel;
 import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.model.entity.SyncResult;
+import com.spark.http.service.model.entity.TransferOptions;
+import com.spark.http.service.model.entity.TransferProtocol;
+import com.spark.http.service.model.entity.TransferResult;
+import com.spark.http.service.service.abs.SSHBatchService;
 import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.service.abs.SSHDistributionService;
+import com.spark.http.service.service.abs.SSHHealthCheckService;
+import com.spark.http.service.service.abs.SSHSyncService;
+import com.spark.http.service.service.abs.SSHTransferService;
 import com.spark.http.service.service.impl.SSHClientServiceImpl;
 
 import io.swagger.annotations.Api;
@@ -21,11 +49,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -39,16 +73,49 @@ public class SSHExecutorController {
     final private SSHClientInfoMapper sshClientInfoMapper;
     final private CMDMapper CMDMapper;
     final private SSHCommandResultMapper sshCommandResultMapper;
+    final private SSHBatchService sshBatchService;
+    final private BatchMapper batchMapper;
+    final private ObjectMapper objectMapper;
+    final private SSHHealthCheckService sshHealthCheckService;
+    final private ConnectionStatusMapper connectionStatusMapper;
+    final private SSHTransferService sshTransferService;
+    final private TransferResultMapper transferResultMapper;
+    final private SSHDistributionService sshDistributionService;
+    final private DistributionMapper distributionMapper;
+    final private SSHSyncService sshSyncService;
+    final private SyncMapper syncMapper;
 
     @Autowired
     public SSHExecutorController(SSHClientServiceImpl SSHClientServiceImpl,
                                  SSHClientInfoMapper sshClientInfoMapper,
                                  CMDMapper CMDMapper,
-                                 SSHCommandResultMapper sshCommandResultMapper) {
+                                 SSHCommandResultMapper sshCommandResultMapper,
+                                 SSHBatchService sshBatchService,
+                                 BatchMapper batchMapper,
+                                 ObjectMapper objectMapper,
+                                 SSHHealthCheckService sshHealthCheckService,
+                                 ConnectionStatusMapper connectionStatusMapper,
+                                 SSHTransferService sshTransferService,
+                                 TransferResultMapper transferResultMapper,
+                                 SSHDistributionService sshDistributionService,
+                                 DistributionMapper distributionMapper,
+                                 SSHSyncService sshSyncService,
+                                 SyncMapper syncMapper) {
         this.sshClientService = SSHClientServiceImpl;
         this.sshClientInfoMapper = sshClientInfoMapper;
         this.CMDMapper = CMDMapper;
         this.sshCommandResultMapper = sshCommandResultMapper;
+        this.sshBatchService = sshBatchService;
+        this.batchMapper = batchMapper;
+        this.objectMapper = objectMapper;
+        this.sshHealthCheckService = sshHealthCheckService;
+        this.connectionStatusMapper = connectionStatusMapper;
+        this.sshTransferService = sshTransferService;
+        this.transferResultMapper = transferResultMapper;
+        this.sshDistributionService = sshDistributionService;
+        this.distributionMapper = distributionMapper;
+        this.sshSyncService = sshSyncService;
+        this.syncMapper = syncMapper;
     }
 
     @GetMapping("/clients")
@@ -102,18 +169,22 @@ public class SSHExecutorController {
 
     @GetMapping("/clients/{clientId}/check-connections")
     @ResponseStatus(HttpStatus.OK)
-    @Operation(summary = "Проверить соединение", description = "Проверяет соединение с SSH-клиентом по указанному идентификатору.")
+    @Operation(summary = "Проверить соединение", description = "Возвращает последний результат проверки соединения с SSH-клиентом. Если клиент еще не проверялся или указан refresh, проверка выполняется сразу.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Соединение успешно проверено"),
             @ApiResponse(responseCode = "404", description = "Клиент с указанным идентификатором не найден"),
             @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
     })
     public CMDResponseDto checkConnection(
-            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId) {
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Проверить соединение заново, не используя сохраненный результат") @RequestParam(value = "refresh", defaultValue = "false") boolean refresh,
+            @Parameter(description = "Уровень проверки: TCP, BANNER, AUTH или COMMAND. По умолчанию ssh.health.deep-level") @RequestParam(value = "level", required = false) ProbeLevel level) {
         log.info("Checking connection for clientId: {}", clientId);
 
-        boolean isConnected = sshClientService.checkConnection(clientId);
-        String message = clientId + " - " + (isConnected ? "successfully connected" : "connection failed");
+        ConnectionStatus status = sshHealthCheckService.getStatus(clientId);
+        if (refresh || level != null || status.getConnected() == null) status = sshHealthCheckService.check(clientId, level);
+
+        String message = connectionMessage(status);
 
         log.info("Connection status for clientId {}: {}",
                 clientId, message);
@@ -129,28 +200,25 @@ public class SSHExecutorController {
 
     @GetMapping("/clients/check-connections")
     @ResponseStatus(HttpStatus.OK)
-    @Operation(summary = "Проверить соединения для всех клиентов", description = "Этот эндпоинт позволяет проверить соединения для всех клиентов.")
+    @Operation(summary = "Проверить соединения для всех клиентов", description = "Возвращает последние результаты фоновой проверки соединений для всех клиентов. Параметр refresh запускает новую проверку в фоне.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список результатов проверки соединений успешно получен"),
             @ApiResponse(responseCode = "500", description= "Внутренняя ошибка сервера")
     })
-    public List<CMDResponseDto> checkConnections() {
+    public List<CMDResponseDto> checkConnections(
+            @Parameter(description = "Запустить новую проверку всех клиентов в фоне") @RequestParam(value = "refresh", defaultValue = "false") boolean refresh,
+            @Parameter(description = "Уровень фоновой проверки: TCP, BANNER, AUTH или COMMAND. По умолчанию ssh.health.deep-level") @RequestParam(value = "level", required = false) ProbeLevel level) {
         log.info("Checking connections for all clients");
 
-        Map<String, Boolean> connectedMaps = sshClientService.checkConnections();
+        if (refresh) sshHealthCheckService.refreshAll(level);
 
-        List<CMDResponseDto> sshCommandResultList = connectedMaps
-                .entrySet()
-                .parallelStream()
-                .map(entry -> {
-
-                    String clientId = entry.getKey();
-                    Boolean isConnected = entry.getValue();
-
-                    String message = clientId + " - " + (isConnected ? "successfully connected" : "connection failed");
+        List<CMDResponseDto> sshCommandResultList = sshHealthCheckService
+                .getStatuses()
+                .stream()
+                .map(status -> {
 
                     SSHCommandResult sshCommandResult = new SSHCommandResult();
-                    sshCommandResult.setOutput(message);
+                    sshCommandResult.setOutput(connectionMessage(status));
 
                     CMDResponseDto CMDResponseDto = sshCommandResultMapper.EntityToDto(sshCommandResult);
 
@@ -163,6 +231,45 @@ public class SSHExecutorController {
 
     }
 
+    @GetMapping("/clients/health")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить состояние соединений", description = "Возвращает для каждого клиента результат последней проверки: время проверки, задержку и ошибку.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояние соединений успешно получено"),
+            @ApiResponse(responseCode = "500", description= "Внутренняя ошибка сервера")
+    })
+    public List<ConnectionStatusDto> getConnectionStatuses() {
+        log.info("Fetching connection statuses for all clients");
+
+        return sshHealthCheckService
+                .getStatuses()
+                .stream()
+                .map(connectionStatusMapper::EntityToDto)
+                .collect(Collectors.toList());
+
+    }
+
+    @GetMapping("/clients/{clientId}/health")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить состояние соединения клиента", description = "Возвращает результат последней проверки соединения с клиентом.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояние соединения успешно получено"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным идентификатором не найден"),
+            @ApiResponse(responseCode = "500", description= "Внутренняя ошибка сервера")
+    })
+    public ConnectionStatusDto getConnectionStatus(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId) {
+        log.info("Fetching connection status for clientId: {}", clientId);
+
+        return connectionStatusMapper.EntityToDto(sshHealthCheckService.getStatus(clientId));
+
+    }
+
+    private static String connectionMessage(ConnectionStatus status) {
+        if (status.getConnected() == null) return status.getClientId() + " - not checked yet";
+        return status.getClientId() + " - " + (status.getConnected() ? "successfully connected" : "connection failed");
+    }
+
 
     @DeleteMapping("/clients/{clientId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -194,37 +301,82 @@ public class SSHExecutorController {
             @ApiResponse(responseCode = "502", description = "Ошибка шлюза"),
             @ApiResponse(responseCode = "503", description = "Сервис недоступен: ошибка при попытке разрешения имени хоста")
     })
-    public void writeJSONToFile(
+    public TransferResultDto writeJSONToFile(
             @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
             @Parameter(description = "Путь к файлу") @RequestParam(value = "path") String path,
             @Parameter(description = "JSON данные для записи") @RequestBody String json) throws IOException {
 
         log.info("Writing JSON to file for client with ID: {}, path: {}", clientId, path);
 
-        sshClientService.writeJson(clientId, path, json);
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        TransferResult transferResult = sshTransferService.write(clientId, path, new ByteArrayInputStream(data), data.length, new TransferOptions());
 
         log.info("JSON written to file successfully for client with ID: {}, path: {}", clientId, path);
+        return transferResultMapper.EntityToDto(transferResult);
 
     }
 
     @PostMapping("/clients/{clientId}/write-file")
-    @Operation(summary = "Записать файл", description = "Этот эндпоинт записывает переданный массив байтов в указанный файл для клиента с указанным ID.")
+    @Operation(summary = "Записать файл", description = "Этот эндпоинт потоково записывает тело запроса в указанный файл для клиента с указанным ID, не загружая его целиком в память.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Файл успешно записан"),
+            @ApiResponse(responseCode = "400", description = "Некорректные входные данные"),
+            @ApiResponse(responseCode = "401", description = "ошибка аунтентификации"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден"),
+            @ApiResponse(responseCode = "413", description = "Размер файла превышает допустимый"),
+            @ApiResponse(responseCode = "500", description = "Ошибка сервера при записи файла"),
+            @ApiResponse(responseCode = "502", description = "Ошибка шлюза"),
+            @ApiResponse(responseCode = "503", description = "Сервис недоступен: ошибка при попытке разрешения имени хоста")
+    })
+    @ResponseStatus(HttpStatus.CREATED)
+    public TransferResultDto writeFile(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Путь к файлу", required = true) @RequestParam(value = "path") String path,
+            @Parameter(description = "Протокол передачи: SFTP или SCP") @RequestParam(value = "protocol", required = false) TransferProtocol protocol,
+            @Parameter(description = "Дописать файл, начиная с уже переданных байтов") @RequestParam(value = "resume", required = false) Boolean resume,
+            @Parameter(description = "Не записывать блоки из нулей, оставляя разреженный файл") @RequestParam(value = "sparse", required = false) Boolean sparse,
+            HttpServletRequest request) throws IOException {
+
+        long contentLength = request.getContentLengthLong();
+        log.info("Writing file for client with ID: {}, path: {}, content length: {}", clientId, path, contentLength);
+
+        // the body is read straight from the socket, the SFTP write window bounds what is held in memory
+        TransferResult transferResult = sshTransferService.write(clientId, path, request.getInputStream(), contentLength,
+                transferOptions(protocol, resume, sparse));
+
+        return transferResultMapper.EntityToDto(transferResult);
+
+    }
+
+    @PostMapping(value = "/clients/{clientId}/write-file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Записать файл из multipart-запроса", description = "Этот эндпоинт записывает файл из части file multipart-запроса в указанный файл для клиента с указанным ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Файл успешно записан"),
             @ApiResponse(responseCode = "400", description = "Некорректные входные данные"),
             @ApiResponse(responseCode = "401", description = "ошибка аунтентификации"),
             @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден"),
+            @ApiResponse(responseCode = "413", description = "Размер файла превышает допустимый"),
             @ApiResponse(responseCode = "500", description = "Ошибка сервера при записи файла"),
             @ApiResponse(responseCode = "502", description = "Ошибка шлюза"),
             @ApiResponse(responseCode = "503", description = "Сервис недоступен: ошибка при попытке разрешения имени хоста")
     })
     @ResponseStatus(HttpStatus.CREATED)
-    public void writeFile(
+    public TransferResultDto writeMultipartFile(
             @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
             @Parameter(description = "Путь к файлу", required = true) @RequestParam(value = "path") String path,
-            @Parameter(description = "Данные для записи в файл", required = true) @RequestBody byte[] data) throws IOException {
+            @Parameter(description = "Протокол передачи: SFTP или SCP") @RequestParam(value = "protocol", required = false) TransferProtocol protocol,
+            @Parameter(description = "Дописать файл, начиная с уже переданных байтов") @RequestParam(value = "resume", required = false) Boolean resume,
+            @Parameter(description = "Не записывать блоки из нулей, оставляя разреженный файл") @RequestParam(value = "sparse", required = false) Boolean sparse,
+            @Parameter(description = "Файл для записи", required = true) @RequestPart(value = "file") MultipartFile file) throws IOException {
+
+        log.info("Writing multipart file for client with ID: {}, path: {}, size: {}", clientId, path, file.getSize());
+
+        try (InputStream data = file.getInputStream()) {
+            TransferResult transferResult = sshTransferService.write(clientId, path, data, file.getSize(),
+                    transferOptions(protocol, resume, sparse));
 
-        sshClientService.writeToRemoteFile(clientId, path, data);
+            return transferResultMapper.EntityToDto(transferResult);
+        }
 
     }
 
@@ -242,20 +394,59 @@ public class SSHExecutorController {
             @ApiResponse(responseCode = "502", description = "Ошибка шлюза"),
             @ApiResponse(responseCode = "503", description = "Сервис недоступен: ошибка при попытке разрешения имени хоста")
     })
-    public void uploadFile(
+    public TransferResultDto uploadFile(
             @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
             @Parameter(description = "Путь к локальному файлу", required = true) @RequestParam(value = "local_file_path") String localFilePath,
-            @Parameter(description = "Путь к удаленному файлу", required = true) @RequestParam(value = "remote_file_path") String remoteFilePath) throws IOException {
+            @Parameter(description = "Путь к удаленному файлу", required = true) @RequestParam(value = "remote_file_path") String remoteFilePath,
+            @Parameter(description = "Протокол передачи: SFTP или SCP") @RequestParam(value = "protocol", required = false) TransferProtocol protocol,
+            @Parameter(description = "Дописать файл, начиная с уже переданных байтов") @RequestParam(value = "resume", required = false) Boolean resume,
+            @Parameter(description = "Не записывать блоки из нулей, оставляя разреженный файл") @RequestParam(value = "sparse", required = false) Boolean sparse,
+            @Parameter(description = "Число параллельных SFTP-каналов для загрузки одного файла") @RequestParam(value = "parallel_streams", required = false) Integer parallelStreams) throws IOException {
         log.info("Uploading file for client with ID: {}, local file path: {}, remote file path: {}",
                 clientId, localFilePath, remoteFilePath);
 
-        sshClientService.uploadFile(clientId, localFilePath, remoteFilePath);
+        TransferOptions transferOptions = transferOptions(protocol, resume, sparse);
+        transferOptions.setParallelStreams(parallelStreams);
+
+        TransferResult transferResult = sshTransferService.upload(clientId, localFilePath, remoteFilePath, transferOptions);
 
         log.info("File uploaded successfully for client with ID: {}, local file path: {}, remote file path: {}",
                 clientId, localFilePath, remoteFilePath);
+        return transferResultMapper.EntityToDto(transferResult);
 
     }
 
+    @PostMapping("/clients/{clientId}/sync")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Синхронизировать файл или каталог", description = "Этот эндпоинт сравнивает локальный файл или каталог с копией на клиенте по контрольным суммам и передает только изменившиеся файлы и блоки.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Синхронизация выполнена, в теле ответа переданный и сэкономленный объем"),
+            @ApiResponse(responseCode = "400", description = "Некорректные входные данные"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден"),
+            @ApiResponse(responseCode = "409", description = "Локальный файл или каталог не найден"),
+            @ApiResponse(responseCode = "500", description = "Ошибка сервера при передаче")
+    })
+    public SyncResultDto sync(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Локальный и удаленный путь") @RequestBody SyncDto syncDto) throws IOException {
+        log.info("Syncing for client with ID: {}, {}", clientId, syncDto);
+
+        SyncResult syncResult = sshSyncService.sync(clientId, syncMapper.dtoToEntity(syncDto));
+
+        log.info("Sync finished for client with ID: {}, {} bytes sent, {} bytes saved",
+                clientId, syncResult.getTransferredBytes(), syncResult.getBytesSaved());
+        return syncMapper.EntityToDto(syncResult);
+
+    }
+
+    private static TransferOptions transferOptions(TransferProtocol protocol, Boolean resume, Boolean sparse) {
+        TransferOptions transferOptions = new TransferOptions();
+        transferOptions.setProtocol(protocol);
+        transferOptions.setResume(resume);
+        transferOptions.setSparse(sparse);
+        return transferOptions;
+    }
+
     @PostMapping("/clients/{clientId}/execute")
     @ResponseStatus(HttpStatus.OK)
     @Operation(summary = "Выполнить команду на клиенте", description = "Этот эндпоинт выполняет указанную команду на клиенте с заданным идентификатором.")
@@ -281,6 +472,121 @@ public class SSHExecutorController {
 
     }
 
+    @PostMapping(value = "/clients/{clientId}/execute/stream", produces = MediaType.TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Выполнить команду с потоковым выводом", description = "Этот эндпоинт выполняет команду на клиенте и передает ее вывод по мере поступления (chunked).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Вывод команды передается потоком"),
+            @ApiResponse(responseCode = "400", description = "Некорректные входные данные"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден"),
+            @ApiResponse(responseCode = "503", description = "Нет свободного SSH-соединения")
+    })
+    public StreamingResponseBody executeStream(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Данные команды для выполнения") @RequestBody CMDDto CMDDto) {
+        log.info("Streaming command on client with ID: {} - Command: {}",
+                clientId, CMDDto.getCmd());
+
+        sshClientService.getClientSession(clientId);
+        CMD cmd = CMDMapper.dtoToEntity(CMDDto);
+
+        return outputStream -> {
+            sshClientService.executeStreaming(clientId, cmd, outputStream);
+            log.info("Streaming command finished on client with ID: {}", clientId);
+        };
+
+    }
+
+    @PostMapping("/batch/execute")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Выполнить команду на нескольких клиентах", description = "Этот эндпоинт параллельно выполняет команду на списке клиентов и/или на всех клиентах с указанным тегом и возвращает результаты по каждому клиенту.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Команда выполнена, результаты по каждому клиенту в теле ответа"),
+            @ApiResponse(responseCode = "400", description = "Не выбран ни один клиент"),
+            @ApiResponse(responseCode = "503", description = "Очередь пакетного выполнения переполнена")
+    })
+    public List<BatchResultDto> executeBatch(
+            @Parameter(description = "Команда, список клиентов и/или тег") @RequestBody BatchCMDDto batchCMDDto) throws IOException {
+        log.info("Executing batch command: {}", batchCMDDto);
+
+        List<BatchResultDto> results = sshBatchService.execute(batchMapper.dtoToEntity(batchCMDDto))
+                .stream()
+                .map(batchMapper::EntityToDto)
+                .collect(Collectors.toList());
+
+        log.info("Batch command finished on {} clients", results.size());
+        return results;
+
+    }
+
+    @PostMapping(value = "/batch/execute/stream", produces = "application/x-ndjson")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Выполнить команду на нескольких клиентах с потоковым ответом", description = "Этот эндпоинт возвращает результат каждого клиента отдельной JSON-строкой сразу по его завершении.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Результаты передаются потоком"),
+            @ApiResponse(responseCode = "400", description = "Не выбран ни один клиент"),
+            @ApiResponse(responseCode = "503", description = "Очередь пакетного выполнения переполнена")
+    })
+    public StreamingResponseBody executeBatchStream(
+            @Parameter(description = "Команда, список клиентов и/или тег") @RequestBody BatchCMDDto batchCMDDto) {
+        log.info("Executing streamed batch command: {}", batchCMDDto);
+
+        BatchCMD batchCMD = batchMapper.dtoToEntity(batchCMDDto);
+
+        return outputStream -> sshBatchService.execute(batchCMD, batchResult -> {
+            outputStream.write(objectMapper.writeValueAsBytes(batchMapper.EntityToDto(batchResult)));
+            outputStream.write('\n');
+            outputStream.flush();
+        });
+
+    }
+
+    @PostMapping("/batch/upload-file")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Разослать локальный файл на несколько клиентов", description = "Этот эндпоинт читает локальный файл один раз и параллельно загружает его на список клиентов и/или на всех клиентов с указанным тегом. В режиме relay уже получившие файл клиенты пересылают его дальше по scp.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Рассылка завершена, результаты по каждому клиенту в теле ответа"),
+            @ApiResponse(responseCode = "400", description = "Не выбран ни один клиент"),
+            @ApiResponse(responseCode = "409", description = "Локальный файл не найден"),
+            @ApiResponse(responseCode = "503", description = "Очередь рассылки переполнена")
+    })
+    public List<DistributionResultDto> distributeFile(
+            @Parameter(description = "Локальный и удалённый путь, список клиентов и/или тег") @RequestBody DistributionDto distributionDto) throws IOException {
+        log.info("Distributing file: {}", distributionDto);
+
+        List<DistributionResultDto> results = sshDistributionService.distribute(distributionMapper.dtoToEntity(distributionDto))
+                .stream()
+                .map(distributionMapper::EntityToDto)
+                .collect(Collectors.toList());
+
+        log.info("File distribution finished on {} clients", results.size());
+        return results;
+
+    }
+
+    @PostMapping(value = "/batch/upload-file/stream", produces = "application/x-ndjson")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Разослать локальный файл на несколько клиентов с потоковым ответом", description = "Этот эндпоинт периодически отправляет прогресс загрузки (статус RUNNING) и итоговый результат каждого клиента отдельными JSON-строками.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Прогресс и результаты передаются потоком"),
+            @ApiResponse(responseCode = "400", description = "Не выбран ни один клиент"),
+            @ApiResponse(responseCode = "409", description = "Локальный файл не найден"),
+            @ApiResponse(responseCode = "503", description = "Очередь рассылки переполнена")
+    })
+    public StreamingResponseBody distributeFileStream(
+            @Parameter(description = "Локальный и удалённый путь, список клиентов и/или тег") @RequestBody DistributionDto distributionDto) {
+        log.info("Distributing file with streamed progress: {}", distributionDto);
+
+        Distribution distribution = distributionMapper.dtoToEntity(distributionDto);
+
+        return outputStream -> sshDistributionService.distribute(distribution, result -> {
+            outputStream.write(objectMapper.writeValueAsBytes(distributionMapper.EntityToDto(result)));
+            outputStream.write('\n');
+            outputStream.flush();
+        });
+
+    }
+
     @PostMapping("/clients")
     @ResponseStatus(HttpStatus.CREATED)
     @ApiResponses(value = {
@@ -295,6 +601,7 @@ public class SSHExecutorController {
                 clientId, sshClientRequestDto);
 
         sshClientService.addClientSession(clientId, sshClientInfoMapper.DtoToEntity(sshClientRequestDto));
+        sshHealthCheckService.refresh(clientId, null);
 
         log.info("SSH connection created successfully for client with ID: {}", clientId);
     }
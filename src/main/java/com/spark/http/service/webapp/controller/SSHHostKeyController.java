@@ -0,0 +1,109 @@
+package com.spark.http.service.webapp.controller;
+
+import com.spark.http.service.converter.HostKeyMapper;
+import com.spark.http.service.model.dto.request.HostKeyPinDto;
+import com.spark.http.service.model.dto.responce.KnownHostDto;
+import com.spark.http.service.service.abs.SSHHostKeyService;
+
+import io.swagger.annotations.Api;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/ssh/spark/server")
+@Api(tags = "SSH Host Key Controller", description = "Контроллер для управления доверенными ключами хостов")
+public class SSHHostKeyController {
+
+    private static final Logger log = LogManager.getLogger(SSHHostKeyController.class);
+
+    final private SSHHostKeyService sshHostKeyService;
+    final private HostKeyMapper hostKeyMapper;
+
+    @Autowired
+    public SSHHostKeyController(SSHHostKeyService sshHostKeyService, HostKeyMapper hostKeyMapper) {
+        this.sshHostKeyService = sshHostKeyService;
+        this.hostKeyMapper = hostKeyMapper;
+    }
+
+    @GetMapping("/host-keys")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить список ключей хостов", description = "Этот эндпоинт возвращает все закрепленные ключи хостов, сгруппированные по адресу и порту.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список ключей успешно получен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public List<KnownHostDto> getKnownHosts() {
+        log.info("Request received to fetch host keys");
+
+        return sshHostKeyService.getKnownHosts()
+                .stream()
+                .map(hostKeyMapper::EntityToDto)
+                .collect(Collectors.toList());
+
+    }
+
+    @GetMapping("/clients/{clientId}/host-keys")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить ключи хоста клиента", description = "Этот эндпоинт возвращает ключи, которым доверяют для адреса клиента.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ключи успешно получены"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден")
+    })
+    public KnownHostDto getKnownHost(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId) {
+        log.debug("Fetching host keys of client with ID: {}", clientId);
+
+        return hostKeyMapper.EntityToDto(sshHostKeyService.getKnownHost(clientId));
+
+    }
+
+    @PostMapping("/clients/{clientId}/host-keys")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Закрепить ключ хоста", description = "Этот эндпоинт добавляет ключ в доверенные для адреса клиента. Без publicKey закрепляется ключ, который сервер предъявляет сейчас; replace=true удаляет прежние ключи.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ключ закреплен"),
+            @ApiResponse(responseCode = "400", description = "Некорректный ключ"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден"),
+            @ApiResponse(responseCode = "502", description = "Не удалось подключиться к серверу")
+    })
+    public KnownHostDto pin(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Ключ в формате known_hosts и признак замены") @RequestBody(required = false) HostKeyPinDto hostKeyPinDto) throws IOException {
+        log.info("Pinning host key of client with ID: {}", clientId);
+
+        String publicKey = hostKeyPinDto != null ? hostKeyPinDto.getPublicKey() : null;
+        boolean replace = hostKeyPinDto != null && Boolean.TRUE.equals(hostKeyPinDto.getReplace());
+
+        return hostKeyMapper.EntityToDto(sshHostKeyService.pin(clientId, publicKey, replace));
+
+    }
+
+    @DeleteMapping("/clients/{clientId}/host-keys")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Отозвать ключ хоста", description = "Этот эндпоинт удаляет ключ с указанным отпечатком или, без отпечатка, все ключи адреса клиента.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ключ отозван"),
+            @ApiResponse(responseCode = "404", description = "Клиент или ключ не найден")
+    })
+    public KnownHostDto revoke(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Отпечаток ключа, например SHA256:...") @RequestParam(value = "fingerprint", required = false) String fingerprint) {
+        log.info("Revoking host key {} of client with ID: {}", fingerprint, clientId);
+
+        return hostKeyMapper.EntityToDto(sshHostKeyService.revoke(clientId, fingerprint));
+
+    }
+
+}
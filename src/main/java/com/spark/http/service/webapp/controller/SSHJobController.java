@@ -0,0 +1,134 @@
+package com.spark.http.service.webapp.controller;
+
+import com.spark.http.service.converter.CMDMapper;
+import com.spark.http.service.converter.CommandJobMapper;
+import com.spark.http.service.converter.SSHCommandResultMapper;
+import com.spark.http.service.model.dto.request.CMDDto;
+import com.spark.http.service.model.dto.responce.CMDResponseDto;
+import com.spark.http.service.model.dto.responce.JobResponseDto;
+import com.spark.http.service.model.entity.CommandJob;
+import com.spark.http.service.service.abs.SSHJobService;
+
+import io.swagger.annotations.Api;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/ssh/spark/server")
+@Api(tags = "SSH Job Controller", description = "Контроллер для асинхронного выполнения команд")
+public class SSHJobController {
+
+    private static final Logger log = LogManager.getLogger(SSHJobController.class);
+
+    final private SSHJobService sshJobService;
+    final private CMDMapper CMDMapper;
+    final private CommandJobMapper commandJobMapper;
+    final private SSHCommandResultMapper sshCommandResultMapper;
+
+    @Autowired
+    public SSHJobController(SSHJobService sshJobService,
+                            CMDMapper CMDMapper,
+                            CommandJobMapper commandJobMapper,
+                            SSHCommandResultMapper sshCommandResultMapper) {
+        this.sshJobService = sshJobService;
+        this.CMDMapper = CMDMapper;
+        this.commandJobMapper = commandJobMapper;
+        this.sshCommandResultMapper = sshCommandResultMapper;
+    }
+
+    @PostMapping("/clients/{clientId}/jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Запустить команду асинхронно", description = "Этот эндпоинт ставит команду в очередь на выполнение и сразу возвращает идентификатор задачи.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Задача принята"),
+            @ApiResponse(responseCode = "400", description = "Некорректные входные данные"),
+            @ApiResponse(responseCode = "404", description = "Клиент с указанным ID не найден"),
+            @ApiResponse(responseCode = "503", description = "Очередь задач переполнена")
+    })
+    public JobResponseDto submitJob(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Данные команды для выполнения") @RequestBody CMDDto CMDDto) {
+        log.info("Submitting job on client with ID: {} - Command: {}",
+                clientId, CMDDto.getCmd());
+
+        CommandJob job = sshJobService.submit(clientId, CMDMapper.dtoToEntity(CMDDto));
+
+        log.info("Job {} submitted for client with ID: {}", job.getJobId(), clientId);
+        return commandJobMapper.EntityToDto(job);
+
+    }
+
+    @GetMapping("/jobs")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить список задач", description = "Этот эндпоинт возвращает все задачи, которые еще хранятся на сервере.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список задач успешно получен"),
+            @ApiResponse(responseCode = "500", description = "Внутренняя ошибка сервера")
+    })
+    public List<JobResponseDto> getJobs() {
+        log.info("Request received to fetch jobs");
+
+        return sshJobService.getJobs()
+                .stream()
+                .map(commandJobMapper::EntityToDto)
+                .collect(Collectors.toList());
+
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить статус задачи", description = "Этот эндпоинт возвращает статус задачи и, если она завершена, ее результат.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Статус задачи успешно получен"),
+            @ApiResponse(responseCode = "404", description = "Задача с указанным ID не найдена")
+    })
+    public JobResponseDto getJob(
+            @Parameter(description = "Идентификатор задачи", required = true) @PathVariable(value = "jobId") String jobId) {
+        log.debug("Fetching job: {}", jobId);
+
+        return commandJobMapper.EntityToDto(sshJobService.getJob(jobId));
+
+    }
+
+    @GetMapping("/jobs/{jobId}/output")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить вывод задачи", description = "Этот эндпоинт возвращает накопленный на данный момент вывод задачи или ее итоговый результат.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Вывод задачи успешно получен"),
+            @ApiResponse(responseCode = "404", description = "Задача с указанным ID не найдена")
+    })
+    public CMDResponseDto getJobOutput(
+            @Parameter(description = "Идентификатор задачи", required = true) @PathVariable(value = "jobId") String jobId) {
+        log.debug("Fetching output of job: {}", jobId);
+
+        return sshCommandResultMapper.EntityToDto(sshJobService.getOutput(jobId));
+
+    }
+
+    @DeleteMapping("/jobs/{jobId}")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Отменить задачу", description = "Этот эндпоинт отменяет задачу в очереди или прерывает выполняющуюся команду.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Задача отменена или уже была завершена"),
+            @ApiResponse(responseCode = "404", description = "Задача с указанным ID не найдена")
+    })
+    public JobResponseDto cancelJob(
+            @Parameter(description = "Идентификатор задачи", required = true) @PathVariable(value = "jobId") String jobId) {
+        log.info("Cancelling job: {}", jobId);
+
+        return commandJobMapper.EntityToDto(sshJobService.cancel(jobId));
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.spark.http.service.webapp.controller;
+
+import com.spark.http.service.converter.ResultCacheMapper;
+import com.spark.http.service.model.dto.responce.ResultCacheStatsDto;
+import com.spark.http.service.service.abs.SSHResultCacheService;
+
+import io.swagger.annotations.Api;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/ssh/spark/server")
+@Api(tags = "SSH Result Cache Controller", description = "Контроллер для управления кэшем результатов команд")
+public class SSHResultCacheController {
+
+    private static final Logger log = LogManager.getLogger(SSHResultCacheController.class);
+
+    final private SSHResultCacheService sshResultCacheService;
+    final private ResultCacheMapper resultCacheMapper;
+
+    @Autowired
+    public SSHResultCacheController(SSHResultCacheService sshResultCacheService, ResultCacheMapper resultCacheMapper) {
+        this.sshResultCacheService = sshResultCacheService;
+        this.resultCacheMapper = resultCacheMapper;
+    }
+
+    @GetMapping("/result-cache")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Получить состояние кэша результатов", description = "Этот эндпоинт возвращает число записей, их размер, попадания, промахи и вытеснения кэша результатов команд.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Состояние успешно получено")
+    })
+    public ResultCacheStatsDto getStats() {
+        log.debug("Fetching result cache stats");
+
+        return resultCacheMapper.EntityToDto(sshResultCacheService.getStats());
+
+    }
+
+    @DeleteMapping("/result-cache")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Очистить кэш результатов", description = "Этот эндпоинт удаляет все сохраненные результаты команд.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Кэш очищен")
+    })
+    public void invalidateAll() {
+        log.info("Invalidating all cached results");
+
+        sshResultCacheService.invalidateAll();
+    }
+
+    @DeleteMapping("/result-cache/clients/{clientId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Очистить кэш результатов клиента", description = "Этот эндпоинт удаляет сохраненные результаты указанной команды или, без команды, все результаты клиента.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Результаты удалены")
+    })
+    public void invalidate(
+            @Parameter(description = "Идентификатор клиента", required = true) @PathVariable(value = "clientId") String clientId,
+            @Parameter(description = "Команда, например df -h") @RequestParam(value = "cmd", required = false) String cmd) {
+        log.info("Invalidating cached results of client with ID: {} - Command: {}", clientId, cmd);
+
+        sshResultCacheService.invalidate(clientId, cmd);
+    }
+
+}
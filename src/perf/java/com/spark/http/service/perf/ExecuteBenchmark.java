@@ -0,0 +1,63 @@
+package com.spark.http.service.perf;
+
+import com.spark.http.service.model.entity.CMD;
+import com.spark.http.service.model.entity.SSHCommandResult;
+import com.spark.http.service.service.abs.SSHClientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** {@link SSHClientService#execute} of a command printing {@code outputBytes} bytes, with and without a pty. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecuteBenchmark {
+
+	@Param({"16", "65536", "1048576"})
+	public int outputBytes;
+
+	@Param({"false", "true"})
+	public boolean pty;
+
+	private PerfApplication application;
+	private SSHClientService sshClientService;
+	private CMD cmd;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		application = new PerfApplication();
+		sshClientService = application.bean(SSHClientService.class);
+
+		cmd = new CMD();
+		cmd.setCmd("head -c " + outputBytes + " /dev/zero | tr '\\0' x");
+		cmd.setPty(pty);
+		cmd.setMaxOutputBytes(outputBytes);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		application.close();
+	}
+
+	@Benchmark
+	public SSHCommandResult execute() throws Exception {
+		return sshClientService.execute(PerfApplication.CLIENT_ID, cmd);
+	}
+
+}
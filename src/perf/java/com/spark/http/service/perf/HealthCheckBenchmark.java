@@ -0,0 +1,59 @@
+package com.spark.http.service.perf;
+
+import com.spark.http.service.model.entity.ConnectionStatus;
+import com.spark.http.service.model.entity.ProbeLevel;
+import com.spark.http.service.service.abs.SSHHealthCheckService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A synchronous connection check at each probe level, what {@code /check-connection} costs.
+ * AUTH and COMMAND open a new transport for every check, so they include the key exchange.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HealthCheckBenchmark {
+
+	@Param({"TCP", "BANNER", "AUTH", "COMMAND"})
+	public ProbeLevel level;
+
+	private PerfApplication application;
+	private SSHHealthCheckService healthCheckService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		application = new PerfApplication();
+		healthCheckService = application.bean(SSHHealthCheckService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		application.close();
+	}
+
+	@Benchmark
+	public ConnectionStatus check() {
+		ConnectionStatus status = healthCheckService.check(PerfApplication.CLIENT_ID, level);
+		if (!Boolean.TRUE.equals(status.getConnected())) throw new IllegalStateException(status.getError());
+		return status;
+	}
+
+}
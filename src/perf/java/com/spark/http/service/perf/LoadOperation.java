@@ -0,0 +1,103 @@
+package com.spark.http.service.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+/** Requests the load test mixes; every call reads the whole response so the connection is kept alive. */
+public enum LoadOperation {
+
+	EXECUTE("execute") {
+		@Override
+		HttpURLConnection open(LoadTest.Target target, String clientId) throws IOException {
+			return post(target, "/clients/" + clientId + "/execute", "application/json", target.getExecuteBody());
+		}
+	},
+
+	WRITE_FILE("write-file") {
+		@Override
+		HttpURLConnection open(LoadTest.Target target, String clientId) throws IOException {
+			String path = URLEncoder.encode(target.remoteFile(clientId), "UTF-8");
+			return post(target, "/clients/" + clientId + "/write-file?path=" + path, "application/octet-stream", target.getPayload());
+		}
+	},
+
+	CLIENTS("clients") {
+		@Override
+		HttpURLConnection open(LoadTest.Target target, String clientId) throws IOException {
+			return connect(target, "/clients");
+		}
+	},
+
+	CHECK_CONNECTIONS("check-connections") {
+		@Override
+		HttpURLConnection open(LoadTest.Target target, String clientId) throws IOException {
+			return connect(target, "/clients/check-connections");
+		}
+	};
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+	private final String name;
+
+	LoadOperation(String name) {
+		this.name = name;
+	}
+
+	/** Name used in {@code perf.load.mix} and in the report. */
+	public String getName() {
+		return name;
+	}
+
+	public static LoadOperation byName(String name) {
+		for (LoadOperation operation : values()) {
+			if (operation.name.equals(name)) return operation;
+		}
+		throw new IllegalArgumentException("Unknown operation: " + name);
+	}
+
+	/** Sends the request and returns the response status. */
+	int call(LoadTest.Target target, String clientId) throws IOException {
+
+		HttpURLConnection connection = open(target, clientId);
+
+		int status = connection.getResponseCode();
+		InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		if (in != null) {
+			try (InputStream body = in) {
+				byte[] buffer = new byte[8192];
+				while (body.read(buffer) != -1) {
+					// drained so the connection goes back to the keep-alive cache
+				}
+			}
+		}
+		return status;
+	}
+
+	abstract HttpURLConnection open(LoadTest.Target target, String clientId) throws IOException;
+
+	private static HttpURLConnection connect(LoadTest.Target target, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(target.url(path)).openConnection();
+		connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+		connection.setReadTimeout(target.getReadTimeoutMillis());
+		return connection;
+	}
+
+	private static HttpURLConnection post(LoadTest.Target target, String path, String contentType, byte[] body) throws IOException {
+
+		HttpURLConnection connection = connect(target, path);
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", contentType);
+		connection.setFixedLengthStreamingMode(body.length);
+
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+		return connection;
+	}
+
+}
@@ -0,0 +1,400 @@
+package com.spark.http.service.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.spark.http.service.service.abs.SSHClientService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load test of the whole service. Boots {@link PerfApplication} and drives a weighted mix of
+ * {@link LoadOperation}s at each target rate of {@code perf.load.rps} in turn. The load is open:
+ * requests are scheduled at fixed intervals whatever the response times, and latency is taken from
+ * the scheduled send time, so time spent queueing in the generator counts as well and an overloaded
+ * service cannot hide behind fewer requests.
+ * <p>
+ * A step is saturated when the completed rate falls below 95% of the target, the error rate exceeds
+ * {@code perf.load.max-error-rate} or p99 exceeds {@code perf.load.max-p99-millis}. The report, with
+ * HdrHistogram percentiles per step and operation, is written as JSON to {@code perf.load.output}.
+ */
+public class LoadTest {
+
+	private static final double MIN_ACHIEVED_RATIO = 0.95;
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+	private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+	public static void main(String[] args) throws Exception {
+
+		LoadConfig config = LoadConfig.fromSystemProperties();
+
+		try (PerfApplication application = new PerfApplication(config.appProperties)) {
+
+			List<String> clientIds = new ArrayList<>();
+			clientIds.add(PerfApplication.CLIENT_ID);
+			for (int i = 1; i < config.clients; i++) {
+				String clientId = PerfApplication.CLIENT_ID + "-" + i;
+				application.bean(SSHClientService.class).addClientSession(clientId, application.getServer().clientInfo());
+				clientIds.add(clientId);
+			}
+
+			Path remote = Files.createDirectories(application.getDirectory().resolve("remote"));
+			Target target = new Target(application.getHttpPort(), config, remote);
+
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("label", config.label);
+			report.put("startedAt", Instant.now().toString());
+			report.put("config", config.describe());
+
+			LoadTest loadTest = new LoadTest(config, target, clientIds);
+			try {
+				if (config.warmupSeconds > 0) {
+					System.out.printf("Warming up at %d rps for %d s%n", config.rps.get(0), config.warmupSeconds);
+					loadTest.step(config.rps.get(0), config.warmupSeconds);
+				}
+
+				List<Map<String, Object>> steps = new ArrayList<>();
+				Map<String, Object> saturation = null;
+				for (int rps : config.rps) {
+					Step step = loadTest.step(rps, config.stepSeconds);
+					steps.add(step.report());
+					System.out.println(step.summary());
+
+					String reason = step.saturation(config);
+					if (reason != null && saturation == null) {
+						saturation = new LinkedHashMap<>();
+						saturation.put("targetRps", rps);
+						saturation.put("reason", reason);
+						System.out.printf("Saturated at %d rps: %s%n", rps, reason);
+						if (config.stopAtSaturation) break;
+					}
+				}
+				report.put("steps", steps);
+				report.put("saturation", saturation);
+			} finally {
+				loadTest.workers.shutdownNow();
+			}
+
+			Path output = Paths.get(config.output);
+			if (output.getParent() != null) Files.createDirectories(output.getParent());
+			new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+			System.out.println("Load test report is saved to " + output.toAbsolutePath());
+		}
+	}
+
+	private final LoadConfig config;
+	private final Target target;
+	private final List<String> clientIds;
+	private final ThreadPoolExecutor workers;
+	private final AtomicLong requests = new AtomicLong();
+
+	LoadTest(LoadConfig config, Target target, List<String> clientIds) {
+		this.config = config;
+		this.target = target;
+		this.clientIds = clientIds;
+		this.workers = new ThreadPoolExecutor(config.workers, config.workers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "load-worker");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/** Sends {@code rps} requests a second for {@code seconds} and waits for the responses. */
+	Step step(int rps, int seconds) throws InterruptedException {
+
+		Step step = new Step(rps, seconds);
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+		long started = System.nanoTime();
+		long end = started + TimeUnit.SECONDS.toNanos(seconds);
+
+		for (long i = 0; ; i++) {
+			long scheduledAt = started + i * intervalNanos;
+			if (scheduledAt >= end) break;
+
+			long delay = scheduledAt - System.nanoTime();
+			if (delay > 0) LockSupport.parkNanos(delay);
+
+			LoadOperation operation = config.pick(ThreadLocalRandom.current());
+			String clientId = clientIds.get((int) (requests.getAndIncrement() % clientIds.size()));
+			step.sent.incrementAndGet();
+			workers.execute(() -> step.record(operation, scheduledAt, call(operation, clientId)));
+		}
+
+		long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.timeoutMillis) + TimeUnit.SECONDS.toNanos(5);
+		while (step.completed.sum() < step.sent.get() && System.nanoTime() < drainDeadline) {
+			Thread.sleep(10);
+		}
+		step.elapsedNanos = System.nanoTime() - started;
+		return step;
+	}
+
+	private String call(LoadOperation operation, String clientId) {
+		try {
+			int status = operation.call(target, clientId);
+			return status < 400 ? null : String.valueOf(status);
+		} catch (IOException e) {
+			return e.getClass().getSimpleName();
+		}
+	}
+
+	static class Step {
+
+		private final int targetRps;
+		private final int seconds;
+		private final AtomicInteger sent = new AtomicInteger();
+		private final LongAdder completed = new LongAdder();
+		private final Map<LoadOperation, OperationStats> operations = new ConcurrentHashMap<>();
+		private volatile long elapsedNanos;
+
+		Step(int targetRps, int seconds) {
+			this.targetRps = targetRps;
+			this.seconds = seconds;
+		}
+
+		void record(LoadOperation operation, long scheduledAt, String error) {
+			long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt);
+			operations.computeIfAbsent(operation, op -> new OperationStats()).record(latencyMicros, error);
+			completed.increment();
+		}
+
+		double achievedRps() {
+			return completed.sum() * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1);
+		}
+
+		Histogram total() {
+			Histogram total = new Histogram(3);
+			operations.values().forEach(stats -> total.add(stats.latency));
+			return total;
+		}
+
+		Map<String, Long> errors() {
+			Map<String, Long> errors = new TreeMap<>();
+			operations.values().forEach(stats -> stats.errors.forEach((error, count) -> errors.merge(error, count.sum(), Long::sum)));
+			return errors;
+		}
+
+		double errorRate() {
+			long count = completed.sum();
+			long failed = errors().values().stream().mapToLong(Long::longValue).sum();
+			return count == 0 ? 0 : (double) failed / count;
+		}
+
+		String saturation(LoadConfig config) {
+			double p99 = total().getValueAtPercentile(99) / 1000.0;
+			if (achievedRps() < targetRps * MIN_ACHIEVED_RATIO) return String.format("achieved %.1f of %d rps", achievedRps(), targetRps);
+			if (errorRate() > config.maxErrorRate) return String.format("error rate %.2f%%", errorRate() * 100);
+			if (p99 > config.maxP99Millis) return String.format("p99 %.1f ms above %d ms", p99, config.maxP99Millis);
+			return null;
+		}
+
+		String summary() {
+			Histogram total = total();
+			return String.format("%5d rps: achieved %.1f rps, p50 %.1f ms, p99 %.1f ms, max %.1f ms, errors %.2f%% %s",
+					targetRps, achievedRps(), total.getValueAtPercentile(50) / 1000.0, total.getValueAtPercentile(99) / 1000.0,
+					total.getMaxValue() / 1000.0, errorRate() * 100, errors().isEmpty() ? "" : errors());
+		}
+
+		Map<String, Object> report() {
+			Map<String, Object> report = new LinkedHashMap<>();
+			report.put("targetRps", targetRps);
+			report.put("durationSeconds", seconds);
+			report.put("sent", sent.get());
+			report.put("completed", completed.sum());
+			report.put("achievedRps", achievedRps());
+			report.put("errorRate", errorRate());
+			report.put("errors", errors());
+			report.put("latencyMillis", latency(total()));
+
+			Map<String, Object> byOperation = new TreeMap<>();
+			operations.forEach((operation, stats) -> {
+				Map<String, Object> entry = new LinkedHashMap<>();
+				entry.put("count", stats.latency.getTotalCount());
+				Map<String, Long> errors = new TreeMap<>();
+				stats.errors.forEach((error, count) -> errors.put(error, count.sum()));
+				entry.put("errors", errors);
+				entry.put("latencyMillis", latency(stats.latency));
+				byOperation.put(operation.getName(), entry);
+			});
+			report.put("operations", byOperation);
+			return report;
+		}
+
+		private static Map<String, Double> latency(Histogram histogram) {
+			Map<String, Double> latency = new LinkedHashMap<>();
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				latency.put(PERCENTILE_NAMES[i], histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0);
+			}
+			latency.put("mean", histogram.getMean() / 1000.0);
+			latency.put("max", histogram.getMaxValue() / 1000.0);
+			return latency;
+		}
+
+	}
+
+	static class OperationStats {
+
+		private final ConcurrentHistogram latency = new ConcurrentHistogram(3);
+		private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+		void record(long latencyMicros, String error) {
+			latency.recordValue(latencyMicros);
+			if (error != null) errors.computeIfAbsent(error, e -> new LongAdder()).increment();
+		}
+
+	}
+
+	/** What the requests are sent to and with. */
+	static class Target {
+
+		private final int port;
+		private final int readTimeoutMillis;
+		private final byte[] executeBody;
+		private final byte[] payload;
+		private final Path remoteDirectory;
+
+		Target(int port, LoadConfig config, Path remoteDirectory) throws IOException {
+			this.port = port;
+			this.readTimeoutMillis = config.timeoutMillis;
+			Map<String, Object> cmd = new LinkedHashMap<>();
+			cmd.put("cmd", config.command);
+			cmd.put("pty", false);
+			this.executeBody = new ObjectMapper().writeValueAsBytes(cmd);
+			this.payload = new byte[config.payloadBytes];
+			new Random(42).nextBytes(payload);
+			this.remoteDirectory = remoteDirectory;
+		}
+
+		String url(String path) {
+			return "http://127.0.0.1:" + port + "/api/ssh/spark/server" + path;
+		}
+
+		int getReadTimeoutMillis() {
+			return readTimeoutMillis;
+		}
+
+		byte[] getExecuteBody() {
+			return executeBody;
+		}
+
+		byte[] getPayload() {
+			return payload;
+		}
+
+		/** One file per client and worker thread, so concurrent writes never share a file. */
+		String remoteFile(String clientId) {
+			return remoteDirectory.resolve(clientId + "-" + Thread.currentThread().getId() + ".bin").toString();
+		}
+
+	}
+
+	/** Settings from {@code perf.load.*} system properties. */
+	static class LoadConfig {
+
+		private String label;
+		private List<Integer> rps;
+		private int stepSeconds;
+		private int warmupSeconds;
+		private Map<LoadOperation, Integer> mix;
+		private int totalWeight;
+		private int clients;
+		private int workers;
+		private int payloadBytes;
+		private String command;
+		private int timeoutMillis;
+		private long maxP99Millis;
+		private double maxErrorRate;
+		private boolean stopAtSaturation;
+		private String output;
+		private String[] appProperties;
+
+		static LoadConfig fromSystemProperties() {
+
+			LoadConfig config = new LoadConfig();
+			config.label = property("perf.load.label", "");
+			config.rps = new ArrayList<>();
+			for (String rps : property("perf.load.rps", "25,50,100,200,400").split(",")) config.rps.add(Integer.parseInt(rps.trim()));
+			config.stepSeconds = Integer.parseInt(property("perf.load.step-seconds", "30"));
+			config.warmupSeconds = Integer.parseInt(property("perf.load.warmup-seconds", "10"));
+
+			config.mix = new LinkedHashMap<>();
+			for (String entry : property("perf.load.mix", "execute=60,write-file=10,clients=20,check-connections=10").split(",")) {
+				String[] parts = entry.trim().split("=");
+				int weight = Integer.parseInt(parts[1].trim());
+				config.mix.put(LoadOperation.byName(parts[0].trim()), weight);
+				config.totalWeight += weight;
+			}
+
+			config.clients = Integer.parseInt(property("perf.load.clients", "4"));
+			config.workers = Integer.parseInt(property("perf.load.workers", "256"));
+			config.payloadBytes = Integer.parseInt(property("perf.load.payload-bytes", "65536"));
+			config.command = property("perf.load.command", "echo ok");
+			config.timeoutMillis = (int) TimeUnit.SECONDS.toMillis(Integer.parseInt(property("perf.load.timeout-seconds", "60")));
+			config.maxP99Millis = Long.parseLong(property("perf.load.max-p99-millis", "1000"));
+			config.maxErrorRate = Double.parseDouble(property("perf.load.max-error-rate", "0.01"));
+			config.stopAtSaturation = Boolean.parseBoolean(property("perf.load.stop-at-saturation", "true"));
+			config.output = property("perf.load.output", "target/load-result.json");
+
+			String appProperties = property("perf.load.app-properties", "");
+			config.appProperties = appProperties.isEmpty() ? new String[0] : appProperties.split("\\s*,\\s*");
+			return config;
+		}
+
+		LoadOperation pick(Random random) {
+			int value = random.nextInt(totalWeight);
+			for (Map.Entry<LoadOperation, Integer> entry : mix.entrySet()) {
+				value -= entry.getValue();
+				if (value < 0) return entry.getKey();
+			}
+			throw new IllegalStateException("empty mix");
+		}
+
+		Map<String, Object> describe() {
+			Map<String, Object> describe = new LinkedHashMap<>();
+			describe.put("rps", rps);
+			describe.put("stepSeconds", stepSeconds);
+			describe.put("warmupSeconds", warmupSeconds);
+			Map<String, Integer> weights = new LinkedHashMap<>();
+			mix.forEach((operation, weight) -> weights.put(operation.getName(), weight));
+			describe.put("mix", weights);
+			describe.put("clients", clients);
+			describe.put("workers", workers);
+			describe.put("payloadBytes", payloadBytes);
+			describe.put("command", command);
+			describe.put("maxP99Millis", maxP99Millis);
+			describe.put("maxErrorRate", maxErrorRate);
+			describe.put("appProperties", Arrays.asList(appProperties));
+			return Collections.unmodifiableMap(describe);
+		}
+
+		/** Maven passes unset properties as empty strings. */
+		private static String property(String name, String defaultValue) {
+			String value = System.getProperty(name, "").trim();
+			return value.isEmpty() ? defaultValue : value;
+		}
+
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.spark.http.service.perf;
+
+import com.spark.http.service.service.abs.SSHClientService;
+import com.spark.http.service.webapp.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The whole service booted against a {@link PerfServer}, with its store in a temporary directory
+ * and {@link #CLIENT_ID} registered. Background health checks are off so they do not compete with
+ * the measured calls; further properties can be passed as {@code key=value}.
+ */
+public class PerfApplication implements Closeable {
+
+	public static final String CLIENT_ID = "perf";
+
+	private final Path directory;
+	private final PerfServer server;
+	private final ConfigurableApplicationContext context;
+
+	public PerfApplication(String... properties) throws IOException {
+
+		directory = Files.createTempDirectory("ssh-perf");
+
+		// command line arguments, so they win over application.properties
+		List<String> args = new ArrayList<>(Arrays.asList(
+				"--server.port=0",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--ssh.store.directory=" + directory.resolve("data"),
+				"--ssh.store.legacy-clients-file=" + directory.resolve("clientsMap.ser"),
+				"--ssh.health.enabled=false"));
+		for (String property : properties) args.add("--" + property);
+
+		context = new SpringApplicationBuilder(Application.class).run(args.toArray(new String[0]));
+
+		// started once Spring has configured logging, which quiets the server's debug output
+		server = new PerfServer();
+		bean(SSHClientService.class).addClientSession(CLIENT_ID, server.clientInfo());
+	}
+
+	public <T> T bean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	/** Port of the embedded web server. */
+	public int getHttpPort() {
+		return ((WebServerApplicationContext) context).getWebServer().getPort();
+	}
+
+	/** Scratch directory of the run, removed on close; remote files can be written under it as well. */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public PerfServer getServer() {
+		return server;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			context.close();
+			server.close();
+		} finally {
+			FileSystemUtils.deleteRecursively(directory);
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.spark.http.service.perf;
+
+import com.spark.http.service.model.entity.HostKeyMode;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.shell.ProcessShellFactory;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * In-process SSH server the benchmarks run against: password authentication, commands run
+ * through {@code /bin/sh -c} and an SFTP subsystem. Listens on a free port of the loopback
+ * interface, so results do not depend on a network.
+ */
+public class PerfServer implements Closeable {
+
+	public static final String USER = "perf";
+	public static final String PASSWORD = "perf";
+
+	private final SshServer sshd;
+
+	public PerfServer() throws IOException {
+		sshd = SshServer.setUpDefaultServer();
+		sshd.setHost("127.0.0.1");
+		sshd.setPort(0);
+		sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+		sshd.setPasswordAuthenticator((user, password, session) -> USER.equals(user) && PASSWORD.equals(password));
+		sshd.setCommandFactory((channel, command) ->
+				new ProcessShellFactory(command, "/bin/sh", "-c", command).createShell(channel));
+		sshd.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+		sshd.start();
+	}
+
+	public int getPort() {
+		return sshd.getPort();
+	}
+
+	/** Client of this server; its host key is not checked, every run generates a new one. */
+	public SSHClientInfo clientInfo() {
+		SSHClientInfo sshClientInfo = new SSHClientInfo();
+		sshClientInfo.setHost("127.0.0.1");
+		sshClientInfo.setPort(getPort());
+		sshClientInfo.setUser(USER);
+		sshClientInfo.setPassword(PASSWORD);
+		sshClientInfo.setHostKeyMode(HostKeyMode.ACCEPT_ALL);
+		return sshClientInfo;
+	}
+
+	@Override
+	public void close() throws IOException {
+		sshd.stop(true);
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.spark.http.service.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spark.http.service.model.entity.HostKeyMode;
+import com.spark.http.service.model.entity.SSHClientInfo;
+import com.spark.http.service.service.impl.AppendOnlyStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The client store: {@code put} appends a change the way registering a client does, with and
+ * without fsync, compacting every {@code ssh.store.compaction-threshold} records; {@code load}
+ * reads a store of {@code clients} entries back the way a restart does.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StoreBenchmark {
+
+	private static final int COMPACTION_THRESHOLD = 1000;
+
+	static {
+		// the store logs every load at INFO and there is no Spring context to configure logging
+		LoggingSystem loggingSystem = LoggingSystem.get(StoreBenchmark.class.getClassLoader());
+		loggingSystem.beforeInitialize();
+		loggingSystem.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Writing {
+
+		@Param({"true", "false"})
+		public boolean syncWrites;
+
+		private Path directory;
+		private AppendOnlyStore<SSHClientInfo> store;
+		private final AtomicLong keys = new AtomicLong();
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			directory = Files.createTempDirectory("ssh-perf-store");
+			store = open(directory, syncWrites);
+			store.load();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			store.close();
+			FileSystemUtils.deleteRecursively(directory);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Loading {
+
+		@Param({"100", "10000"})
+		public int clients;
+
+		private Path directory;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			directory = Files.createTempDirectory("ssh-perf-store");
+			try (AppendOnlyStore<SSHClientInfo> store = open(directory, false)) {
+				store.load();
+				for (int i = 0; i < clients; i++) store.put("client-" + i, clientInfo(i));
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			FileSystemUtils.deleteRecursively(directory);
+		}
+
+	}
+
+	@Benchmark
+	public void put(Writing writing) throws IOException {
+		long key = writing.keys.getAndIncrement();
+		writing.store.put("client-" + key % COMPACTION_THRESHOLD, clientInfo(key));
+	}
+
+	@Benchmark
+	public Map<String, SSHClientInfo> load(Loading loading) throws IOException {
+		try (AppendOnlyStore<SSHClientInfo> store = open(loading.directory, false)) {
+			return store.load();
+		}
+	}
+
+	private static AppendOnlyStore<SSHClientInfo> open(Path directory, boolean syncWrites) {
+		return new AppendOnlyStore<>(directory, "clients", SSHClientInfo.class, new ObjectMapper(),
+				syncWrites, COMPACTION_THRESHOLD);
+	}
+
+	private static SSHClientInfo clientInfo(long i) {
+		SSHClientInfo sshClientInfo = new SSHClientInfo();
+		sshClientInfo.setHost("10.0." + (i / 256 % 256) + "." + (i % 256));
+		sshClientInfo.setUser("spark");
+		sshClientInfo.setPassword("secret-" + i);
+		sshClientInfo.setHostKeyMode(HostKeyMode.TOFU);
+		sshClientInfo.getTags().add("spark");
+		return sshClientInfo;
+	}
+
+}
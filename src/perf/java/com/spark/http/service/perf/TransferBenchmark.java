@@ -0,0 +1,91 @@
+package com.spark.http.service.perf;
+
+import com.spark.http.service.model.entity.TransferOptions;
+import com.spark.http.service.model.entity.TransferResult;
+import com.spark.http.service.service.abs.SSHTransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File transfers of {@code payloadBytes} over SFTP: {@code write} streams a request body the way
+ * {@code /write-file} does, {@code upload} sends a local file the way {@code /upload-file} does.
+ * Every benchmark thread writes its own remote file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransferBenchmark {
+
+	@Param({"4096", "1048576", "16777216"})
+	public int payloadBytes;
+
+	private PerfApplication application;
+	private SSHTransferService transferService;
+	private byte[] payload;
+	private Path localFile;
+	private final AtomicInteger threads = new AtomicInteger();
+
+	@State(Scope.Thread)
+	public static class RemoteFile {
+
+		private String path;
+
+		@Setup(Level.Trial)
+		public void setUp(TransferBenchmark benchmark) throws IOException {
+			Path remote = benchmark.application.getDirectory().resolve("remote");
+			Files.createDirectories(remote);
+			path = remote.resolve("file-" + benchmark.threads.incrementAndGet()).toString();
+		}
+
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		application = new PerfApplication();
+		transferService = application.bean(SSHTransferService.class);
+
+		payload = new byte[payloadBytes];
+		new Random(42).nextBytes(payload);
+		localFile = application.getDirectory().resolve("local.bin");
+		Files.write(localFile, payload);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		application.close();
+	}
+
+	@Benchmark
+	public TransferResult write(RemoteFile remoteFile) throws IOException {
+		return transferService.write(PerfApplication.CLIENT_ID, remoteFile.path,
+				new ByteArrayInputStream(payload), payload.length, new TransferOptions());
+	}
+
+	@Benchmark
+	public TransferResult upload(RemoteFile remoteFile) throws IOException {
+		return transferService.upload(PerfApplication.CLIENT_ID, localFile.toString(), remoteFile.path, new TransferOptions());
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.spark.http.service.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AppendOnlyStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsAfterFailedAppendSurviveReload() throws IOException {
+
+		FailingStore store = new FailingStore(directory);
+		store.load();
+		store.put("a", "1");
+
+		store.failNextWrite = true;
+		assertThrows(IOException.class, () -> store.put("b", "2"));
+		store.put("c", "3");
+		store.close();
+
+		AppendOnlyStore<String> reloaded = new AppendOnlyStore<>(directory, "test", String.class, new ObjectMapper(), true, 0);
+		Map<String, String> content = reloaded.load();
+		reloaded.close();
+
+		assertEquals("1", content.get("a"));
+		assertEquals("3", content.get("c"));
+		assertFalse(content.containsKey("b"));
+	}
+
+	@Test
+	void failedCompactionDoesNotFailTheChange() throws IOException {
+
+		FailingStore store = new FailingStore(directory, 2);
+		store.load();
+		store.put("a", "1");
+
+		store.failNextTruncate = true;
+		store.put("b", "2");
+		store.put("c", "3");
+		store.close();
+
+		AppendOnlyStore<String> reloaded = new AppendOnlyStore<>(directory, "test", String.class, new ObjectMapper(), true, 0);
+		Map<String, String> content = reloaded.load();
+		reloaded.close();
+
+		assertEquals(3, content.size());
+		assertEquals("2", content.get("b"));
+	}
+
+	/** Store whose log fails the next write halfway, like a full disk, or the next truncate. */
+	private static class FailingStore extends AppendOnlyStore<String> {
+
+		private boolean failNextWrite;
+		private boolean failNextTruncate;
+
+		FailingStore(Path directory) {
+			this(directory, 0);
+		}
+
+		FailingStore(Path directory, int compactionThreshold) {
+			super(directory, "test", String.class, new ObjectMapper(), true, compactionThreshold);
+		}
+
+		@Override
+		FileChannel openLog(Path file) throws IOException {
+			FileChannel channel = super.openLog(file);
+			return new DelegatingChannel(channel) {
+				@Override
+				public int write(ByteBuffer src) throws IOException {
+					if (!failNextWrite) return super.write(src);
+
+					failNextWrite = false;
+					ByteBuffer half = src.duplicate();
+					half.limit(src.position() + src.remaining() / 2);
+					super.write(half);
+					throw new IOException("No space left on device");
+				}
+
+				@Override
+				public FileChannel truncate(long size) throws IOException {
+					if (!failNextTruncate) return super.truncate(size);
+
+					failNextTruncate = false;
+					throw new IOException("Input/output error");
+				}
+			};
+		}
+
+	}
+
+	private static class DelegatingChannel extends FileChannel {
+
+		private final FileChannel channel;
+
+		DelegatingChannel(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return channel.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			return channel.read(dsts, offset, length);
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			return channel.write(src);
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			return channel.write(srcs, offset, length);
+		}
+
+		@Override
+		public long position() throws IOException {
+			return channel.position();
+		}
+
+		@Override
+		public FileChannel position(long newPosition) throws IOException {
+			channel.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return channel.size();
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			channel.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			channel.force(metaData);
+		}
+
+		@Override
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return channel.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			return channel.transferFrom(src, position, count);
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return channel.read(dst, position);
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			return channel.write(src, position);
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			return channel.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(long position, long size, boolean shared) throws IOException {
+			return channel.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return channel.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			channel.close();
+		}
+
+	}
+
+}